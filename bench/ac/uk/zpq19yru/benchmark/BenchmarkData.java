@@ -0,0 +1,138 @@
+package ac.uk.zpq19yru.benchmark;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.benchmark
+    Class Purpose:  Builds the Timesheets, Grades and output used by the benchmarks, in memory or on disk.
+
+*/
+
+import ac.uk.zpq19yru.objects.Grade;
+import ac.uk.zpq19yru.process.PayrollCollator;
+import ac.uk.zpq19yru.tools.TimesheetGenerator;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+final class BenchmarkData {
+
+    static final int FIRST_VALUE_COLUMN = 12, LAST_VALUE_COLUMN = 37;
+    static final String[] GRADE_CODES = new String[] { "068", "069", "070", "071", "072", "073" };
+
+    private static final long SEED = 20261018L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Method to create a Timesheet Workbook in the layout 'PayrollCollator' expects, using the same generator
+     * as production scale test folders.
+     * Every worker appears on rows / workers consecutive rows of each sheet, so 'rows' should be a multiple of
+     * 'workers'.
+     *
+     * @param workers - Amount of distinct workers.
+     * @param rows - Amount of data rows per sheet.
+     * @param sheets - Amount of sheets.
+     * @param file - Index of the file, used to vary the values between files.
+     * @return - Workbook, held in memory.
+     */
+    static XSSFWorkbook createTimesheet(int workers, int rows, int sheets, int file) {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        new TimesheetGenerator(workers, 1, sheets, Math.max(rows / workers, 1), 0, SEED + file, GRADE_CODES)
+                .write(workbook, 0);
+        return workbook;
+    }
+
+    /**
+     * Method to write Timesheets to a new temporary folder.
+     *
+     * @param workers - Amount of distinct workers.
+     * @param rows - Amount of data rows per sheet.
+     * @param sheets - Amount of sheets per file.
+     * @param files - Amount of files.
+     * @return - Folder containing the Timesheets.
+     * @throws IOException - If the folder or a Timesheet cannot be written.
+     */
+    static File writeTimesheets(int workers, int rows, int sheets, int files) throws IOException {
+        File folder = Files.createTempDirectory("collator-bench").toFile();
+        for (int f = 0; f < files; f++) {
+            try (XSSFWorkbook workbook = createTimesheet(workers, rows, sheets, f);
+                 FileOutputStream out = new FileOutputStream(new File(folder, "timesheet" + f + ".xlsx"))) {
+                workbook.write(out);
+            }
+        }
+        return folder;
+    }
+
+    /**
+     * Method to delete a folder created by 'writeTimesheets' and everything within it.
+     *
+     * @param folder - Folder to delete.
+     */
+    static void delete(File folder) {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                delete(file);
+            }
+        }
+        if (!folder.delete()) {
+            folder.deleteOnExit();
+        }
+    }
+
+    /**
+     * Method to create one Grade per code, with the default rates from 'rates.properties'.
+     *
+     * @return - Grades, in the order of 'GRADE_CODES'.
+     */
+    static Grade[] createGrades() {
+        Grade[] grades = new Grade[GRADE_CODES.length];
+        for (int i = 0; i < grades.length; i++) {
+            Grade grade = new Grade("grade" + (i + 1), GRADE_CODES[i]);
+            grade.setDailyRate(22.18 + i);
+            grade.setNightRate(27.69 + i);
+            grade.setOTA(28.77 + i);
+            grade.setOTB(36.63 + i);
+            grade.setTravel(18.73 + i);
+            grades[i] = grade;
+        }
+        return grades;
+    }
+
+    /**
+     * Method to add every Grade to a collator.
+     *
+     * @param collator - Collator to add the Grades to.
+     */
+    static void addGrades(PayrollCollator collator) {
+        for (Grade grade : createGrades()) {
+            collator.addPaygrade(grade);
+        }
+    }
+
+    /**
+     * Method to discard everything written to System.out by the collator, so that progress messages
+     * don't dominate the time measured. JMH reports results through its own channel, not System.out.
+     */
+    static void silence() {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+    }
+
+}
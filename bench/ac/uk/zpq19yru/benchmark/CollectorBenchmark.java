@@ -0,0 +1,111 @@
+package ac.uk.zpq19yru.benchmark;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.benchmark
+    Class Purpose:  Benchmarks collecting Timesheets into the Man Directories, from Workbooks and from files.
+
+*/
+
+import ac.uk.zpq19yru.exceptions.WorkbookNotValidException;
+import ac.uk.zpq19yru.objects.ExcelDocument;
+import ac.uk.zpq19yru.process.PayrollCollator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectorBenchmark {
+
+    @Param({ "100", "1000" })
+    public int workers;
+
+    @Param({ "1000" })
+    public int rows;
+
+    @Param({ "2" })
+    public int sheets;
+
+    @Param({ "4" })
+    public int files;
+
+    @Param({ "1" })
+    public int threads;
+
+    private final List<ExcelDocument> documents = new ArrayList<>();
+    private File folder;
+    private PayrollCollator collator;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException, WorkbookNotValidException {
+        BenchmarkData.silence();
+        for (int f = 0; f < files; f++) {
+            documents.add(new ExcelDocument(
+                    BenchmarkData.createTimesheet(workers, rows, sheets, f), "timesheet" + f + ".xlsx"
+            ));
+        }
+        folder = BenchmarkData.writeTimesheets(workers, rows, sheets, files);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        collator = new PayrollCollator();
+        collator.setThreads(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (ExcelDocument document : documents) {
+            document.getWorkbook().close();
+        }
+        documents.clear();
+        BenchmarkData.delete(folder);
+    }
+
+    /**
+     * Collecting Workbooks which have already been converted, the 'reader_streaming=false' path.
+     */
+    @Benchmark
+    public PayrollCollator collectData() {
+        for (ExcelDocument document : documents) {
+            collator.addDocument(document);
+        }
+        collator.collectData();
+        return collator;
+    }
+
+    /**
+     * Scanning, streaming and collecting Timesheets from disk, the 'reader_streaming=true' path.
+     */
+    @Benchmark
+    public PayrollCollator streamDocuments() {
+        collator.collectDocuments(folder);
+        collator.streamDocuments();
+        return collator;
+    }
+
+}
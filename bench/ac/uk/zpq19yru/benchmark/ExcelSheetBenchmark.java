@@ -0,0 +1,89 @@
+package ac.uk.zpq19yru.benchmark;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.benchmark
+    Class Purpose:  Benchmarks building an ExcelSheet and reading every cell of it through 'getCell'.
+
+*/
+
+import ac.uk.zpq19yru.exceptions.CellNotFoundException;
+import ac.uk.zpq19yru.exceptions.SheetNotValidException;
+import ac.uk.zpq19yru.objects.ExcelSheet;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExcelSheetBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int rows;
+
+    @Param({ "100" })
+    public int workers;
+
+    private XSSFWorkbook workbook;
+    private Sheet sheet;
+    private ExcelSheet excelSheet;
+
+    @Setup
+    public void setup() throws SheetNotValidException {
+        workbook = BenchmarkData.createTimesheet(workers, rows, 1, 0);
+        sheet = workbook.getSheetAt(0);
+        excelSheet = new ExcelSheet(sheet, false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        workbook.close();
+    }
+
+    /**
+     * Indexing every cell of a sheet, as 'convertDocuments()' does for each sheet of each Timesheet.
+     */
+    @Benchmark
+    public ExcelSheet load() throws SheetNotValidException {
+        return new ExcelSheet(sheet, false);
+    }
+
+    /**
+     * Reading the cells 'collectData()' reads (names, grade and values), row by row.
+     */
+    @Benchmark
+    public void getCell(Blackhole blackhole) throws CellNotFoundException {
+        for (int row = 1; row < excelSheet.getMaxRows(); row++) {
+            int columns = excelSheet.getMaxColumns(row);
+            blackhole.consume(excelSheet.getCell(row, 0));
+            blackhole.consume(excelSheet.getCell(row, 1));
+            blackhole.consume(excelSheet.getCell(row, 11));
+            for (int column = BenchmarkData.FIRST_VALUE_COLUMN; column < columns; column++) {
+                blackhole.consume(excelSheet.getCell(row, column));
+            }
+        }
+    }
+
+}
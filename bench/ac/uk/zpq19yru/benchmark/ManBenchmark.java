@@ -0,0 +1,104 @@
+package ac.uk.zpq19yru.benchmark;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.benchmark
+    Class Purpose:  Benchmarks adding a worker's Timesheet rows to a Man and pricing the totals.
+
+*/
+
+import ac.uk.zpq19yru.objects.Grade;
+import ac.uk.zpq19yru.objects.Man;
+import ac.uk.zpq19yru.objects.RateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManBenchmark {
+
+    @Param({ "1", "10", "100" })
+    public int rows;
+
+    private double[][] values;
+    private Man man;
+    private RateTable rateTable;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(rows);
+        values = new double[rows][BenchmarkData.LAST_VALUE_COLUMN + 1];
+        for (double[] row : values) {
+            for (int column = BenchmarkData.FIRST_VALUE_COLUMN; column <= BenchmarkData.LAST_VALUE_COLUMN; column++) {
+                row[column] = random.nextInt(48) / 4.0;
+            }
+        }
+        man = addRows();
+        man.removeInvalidEntries();
+        Grade grade = BenchmarkData.createGrades()[0];
+        man.setGrade(grade.getLinkedCode());
+        man.setPayGrade(grade);
+        rateTable = new RateTable(Arrays.asList(BenchmarkData.createGrades()));
+    }
+
+    /**
+     * Adding every value column of 'rows' Timesheet rows to a new Man.
+     */
+    @Benchmark
+    public Man addData() {
+        return addRows();
+    }
+
+    /**
+     * Pricing every remaining column of a Man, as 'outputData()' does (Value, Rate and Pay).
+     */
+    @Benchmark
+    public void getPayGrade(Blackhole blackhole) {
+        for (int key : man.getColumns()) {
+            double value = man.getData(key);
+            blackhole.consume(value);
+            blackhole.consume(man.getPayGrade(key, value, false));
+            blackhole.consume(man.getPayGrade(key, value, true));
+        }
+    }
+
+    /**
+     * Pricing every remaining column of a Man through the compiled RateTable, as 'setupPaygrades()' does.
+     */
+    @Benchmark
+    public boolean price() {
+        return rateTable.price(man);
+    }
+
+    private Man addRows() {
+        Man created = new Man("Johnson", "Callum");
+        for (double[] row : values) {
+            for (int column = BenchmarkData.FIRST_VALUE_COLUMN; column <= BenchmarkData.LAST_VALUE_COLUMN; column++) {
+                created.addData(column, row[column]);
+            }
+        }
+        return created;
+    }
+
+}
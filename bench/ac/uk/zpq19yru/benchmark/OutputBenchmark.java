@@ -0,0 +1,100 @@
+package ac.uk.zpq19yru.benchmark;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.benchmark
+    Class Purpose:  Benchmarks writing the Summary, Hours and Expenses sheets of the Output Document.
+
+*/
+
+import ac.uk.zpq19yru.Main;
+import ac.uk.zpq19yru.exceptions.WorkbookNotValidException;
+import ac.uk.zpq19yru.objects.ExcelDocument;
+import ac.uk.zpq19yru.process.PayrollCollator;
+import ac.uk.zpq19yru.process.StreamingOutputWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputBenchmark {
+
+    @Param({ "100", "1000" })
+    public int workers;
+
+    @Param({ "workbook", "streaming" })
+    public String writer;
+
+    private final List<ExcelDocument> documents = new ArrayList<>();
+    private File outputFile;
+    private PayrollCollator collator;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException, WorkbookNotValidException {
+        BenchmarkData.silence();
+        documents.add(new ExcelDocument(
+                BenchmarkData.createTimesheet(workers, workers * 4, 1, 0), "timesheet0.xlsx"
+        ));
+        // The in-memory writer only accepts an empty Workbook under the usual Output File name.
+        outputFile = new File(Files.createTempDirectory("collator-bench").toFile(), Main.OUTPUT_FILE_NAME);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        collator = new PayrollCollator();
+        collator.setThreads(1);
+        BenchmarkData.addGrades(collator);
+        for (ExcelDocument document : documents) {
+            collator.addDocument(document);
+        }
+        collator.collectData();
+        collator.setupPaygrades();
+        collator.createOutputWorkbook(outputFile);
+        if (writer.equals("streaming")) {
+            collator.setOutputWriter(new StreamingOutputWriter(100, true));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (ExcelDocument document : documents) {
+            document.getWorkbook().close();
+        }
+        documents.clear();
+        BenchmarkData.delete(outputFile.getParentFile());
+    }
+
+    /**
+     * Writing and saving the Output Document for 'workers' priced Men.
+     */
+    @Benchmark
+    public void outputData() throws WorkbookNotValidException {
+        collator.outputData();
+    }
+
+}
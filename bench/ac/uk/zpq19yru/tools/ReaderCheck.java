@@ -0,0 +1,230 @@
+package ac.uk.zpq19yru.tools;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.tools
+    Class Purpose:  Collates Timesheets through both readers (streaming and Workbook) and compares their totals,
+                    so a change to either reader can be checked against the other.
+
+*/
+
+import ac.uk.zpq19yru.objects.DocumentTotals;
+import ac.uk.zpq19yru.process.PayrollCollator;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class ReaderCheck {
+
+    /**
+     * Method to collate Timesheets through both readers and report every difference between their totals.
+     *
+     * @param files - XLSX Files to compare.
+     * @return - Amount of Timesheets whose totals differ.
+     */
+    public static int compare(List<File> files) {
+        Map<File, DocumentTotals> streamed = read(files, true), converted = read(files, false);
+        int differing = 0;
+        for (File file : files) {
+            List<String> differences = new ArrayList<>();
+            compare(streamed.get(file), converted.get(file), differences);
+            if (differences.isEmpty()) {
+                System.out.println("'" + file.getName() + "' collates the same totals through both readers.");
+                continue;
+            }
+            differing++;
+            System.err.println("'" + file.getName() + "' collates different totals (streaming / workbook):");
+            for (String difference : differences) {
+                System.err.println("  " + difference);
+            }
+        }
+        return differing;
+    }
+
+    /**
+     * Method to write a small Timesheet in the layout of a templated one, with blank styled cells in place of
+     * missing values, a blank grade and a blank name, the cells either reader is most likely to read differently.
+     *
+     * @param output - File to write to.
+     * @throws IOException - If the file cannot be written.
+     */
+    public static void writeSample(File output) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle style = workbook.createCellStyle();
+            style.setDataFormat(workbook.createDataFormat().getFormat("0.00"));
+            Sheet sheet = workbook.createSheet("Week 1");
+            Row header = sheet.createRow(0);
+            for (int column = 0; column < TimesheetGenerator.COLUMNS - 1; column++) {
+                header.createCell(column).setCellValue(column == 27 ? "Radius" : "Column " + column);
+            }
+            header.createCell(TimesheetGenerator.COLUMNS - 1).setCellStyle(style); // Blank header.
+
+            writeRow(sheet.createRow(1), style, "Smith", "James", "068", 2.0);
+            writeRow(sheet.createRow(2), style, "Smith", "James", "068", Double.NaN);
+            writeRow(sheet.createRow(3), style, "Smith", "James", "068", Double.NaN);
+            writeRow(sheet.createRow(4), style, "Jones", "Mary", null, 4.0);
+            writeRow(sheet.createRow(5), style, null, "John", "069", 6.0);
+
+            Row narrow = sheet.createRow(6); // Fewer cells than columns, so only the first four are read.
+            narrow.createCell(0).setCellValue("Taylor");
+            narrow.createCell(1).setCellValue("Robert");
+            narrow.createCell(11).setCellValue("070");
+            narrow.createCell(27).setCellValue(8.0);
+
+            try (FileOutputStream stream = new FileOutputStream(output)) {
+                workbook.write(stream);
+            }
+        }
+    }
+
+    /**
+     * Helper method to write a single row of the sample, every cell is created but only some hold a value.
+     *
+     * @param row - Row to write to.
+     * @param style - Style of the blank cells.
+     * @param lastName - Last name, null for a blank cell.
+     * @param firstName - First name.
+     * @param grade - Grade code, null for a blank cell.
+     * @param radius - Radius (column 27), NaN for a blank cell.
+     */
+    private static void writeRow(Row row, CellStyle style, String lastName, String firstName, String grade,
+                                 double radius) {
+        for (int column = 0; column < TimesheetGenerator.COLUMNS; column++) {
+            row.createCell(column).setCellStyle(style);
+        }
+        if (lastName != null) {
+            row.getCell(0).setCellValue(lastName);
+        }
+        row.getCell(1).setCellValue(firstName);
+        if (grade != null) {
+            row.getCell(11).setCellValue(grade);
+        }
+        row.getCell(12).setCellValue(5.0);
+        if (!Double.isNaN(radius)) {
+            row.getCell(27).setCellValue(radius);
+        }
+    }
+
+    /**
+     * Helper method to collate Timesheets through one of the readers.
+     *
+     * @param files - XLSX Files to read.
+     * @param streaming - true = streaming reader, false = Workbook reader.
+     * @return - Totals of each Timesheet read.
+     */
+    private static Map<File, DocumentTotals> read(List<File> files, boolean streaming) {
+        PayrollCollator collator = new PayrollCollator();
+        collator.setThreads(1);
+        collator.setStreamingInput(streaming);
+        Map<File, DocumentTotals> read = new HashMap<>();
+        collator.readDocuments(files, read);
+        return read;
+    }
+
+    /**
+     * Helper method to compare the totals of a Timesheet read by both readers.
+     *
+     * @param streamed - Totals read by the streaming reader, null if it failed.
+     * @param converted - Totals read by the Workbook reader, null if it failed.
+     * @param differences - List each difference found is added to.
+     */
+    private static void compare(DocumentTotals streamed, DocumentTotals converted, List<String> differences) {
+        if (streamed == null || converted == null) {
+            if (streamed != converted) {
+                differences.add("Read: " + (streamed != null) + " / " + (converted != null));
+            }
+            return;
+        }
+        check(differences, "Headers", Arrays.toString(streamed.getHeaders()),
+                Arrays.toString(converted.getHeaders()));
+        check(differences, "Sheets, Rows, Cells", Arrays.toString(streamed.getReadStatistics()),
+                Arrays.toString(converted.getReadStatistics()));
+        List<DocumentTotals.WorkerTotals> workers = new ArrayList<>(streamed.getWorkers());
+        List<DocumentTotals.WorkerTotals> others = new ArrayList<>(converted.getWorkers());
+        check(differences, "Men", names(workers).toString(), names(others).toString());
+        Iterator<DocumentTotals.WorkerTotals> other = others.iterator();
+        for (DocumentTotals.WorkerTotals worker : workers) {
+            if (!other.hasNext()) {
+                break;
+            }
+            DocumentTotals.WorkerTotals expected = other.next();
+            String name = worker.getLastName() + ", " + worker.getFirstName();
+            check(differences, name + " grade", "'" + worker.getGrade() + "'", "'" + expected.getGrade() + "'");
+            int columns = Math.max(worker.getColumns(), expected.getColumns());
+            for (int column = 0; column < columns; column++) {
+                check(differences, name + " column " + column,
+                        worker.getEntries(column) + " entries, " + getTotal(worker, column),
+                        expected.getEntries(column) + " entries, " + getTotal(expected, column));
+            }
+        }
+    }
+
+    private static double getTotal(DocumentTotals.WorkerTotals worker, int column) {
+        return worker.getSum(column) + worker.getCompensation(column);
+    }
+
+    private static List<String> names(List<DocumentTotals.WorkerTotals> workers) {
+        List<String> names = new ArrayList<>(workers.size());
+        for (DocumentTotals.WorkerTotals worker : workers) {
+            names.add(worker.getLastName() + ", " + worker.getFirstName());
+        }
+        return names;
+    }
+
+    private static void check(List<String> differences, String name, String streamed, String converted) {
+        if (!streamed.equals(converted)) {
+            differences.add(name + ": " + streamed + " / " + converted);
+        }
+    }
+
+    /**
+     * Compares the readers from the command line, for example:
+     * java -cp "out/bench:out/main:jars/*" ac.uk.zpq19yru.tools.ReaderCheck "Generated Timesheets"
+     * Without arguments a sample Timesheet with blank styled cells is written and compared.
+     *
+     * @param args - XLSX Files or folders of them to compare.
+     */
+    public static void main(String[] args) {
+        List<File> files = new ArrayList<>();
+        try {
+            if (args.length == 0) {
+                File sample = Files.createTempFile("Reader Check ", ".xlsx").toFile();
+                sample.deleteOnExit();
+                writeSample(sample);
+                files.add(sample);
+            }
+            for (String arg : args) {
+                File file = new File(arg);
+                File[] children = file.isDirectory() ? file.listFiles((folder, name) -> name.endsWith(".xlsx"))
+                        : new File[] { file };
+                if (children != null) {
+                    Arrays.sort(children);
+                    Collections.addAll(files, children);
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Failed to write the sample Timesheet: " + ex.getMessage());
+            System.exit(2);
+        }
+        int differing = compare(files);
+        System.out.println(differing + " of " + files.size() + " Timesheets collate different totals.");
+        System.exit(differing == 0 ? 0 : 1);
+    }
+
+}
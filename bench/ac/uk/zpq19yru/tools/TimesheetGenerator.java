@@ -0,0 +1,357 @@
+package ac.uk.zpq19yru.tools;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.tools
+    Class Purpose:  Writes synthetic Timesheets in the layout the collator expects, for benchmarks, load and scale
+                    testing. Kept with the benchmarks so it never ships in the program jar.
+
+*/
+
+import ac.uk.zpq19yru.objects.Configuration;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class TimesheetGenerator {
+
+    public static final int COLUMNS = 38; // Last Name (0) to OTA (37).
+
+    private static final String[] LAST_NAMES = new String[] {
+            "Smith", "Jones", "Taylor", "Brown", "Williams", "Wilson", "Johnson", "Davies", "Robinson", "Wright",
+            "Thompson", "Evans", "Walker", "White", "Roberts", "Green", "Hall", "Wood", "Jackson", "Clarke"
+    };
+    private static final String[] FIRST_NAMES = new String[] {
+            "James", "John", "Robert", "Michael", "William", "David", "Richard", "Joseph", "Thomas", "Charles",
+            "Mary", "Patricia", "Jennifer", "Linda", "Elizabeth", "Susan", "Jessica", "Sarah", "Karen", "Nancy"
+    };
+    private static final String[] DEFAULT_GRADE_CODES = new String[] { "068", "069", "070", "071", "072", "073" };
+    private static final String[] HEADERS = new String[COLUMNS];
+
+    static {
+        String[] named = new String[] {
+                "Last Name", "First Name", "Employee No", "Site", "Project", "Role", "Week Ending",
+                "Supervisor", "Shift", "Cost Centre", "Notes", "Grade", "Days", "Bonus"
+        };
+        for (int i = 0; i < COLUMNS; i++) {
+            HEADERS[i] = i < named.length ? named[i] : "Column " + i;
+        }
+        HEADERS[15] = "Travel Hours";
+        HEADERS[17] = "Nights";
+        HEADERS[27] = "Radius";
+        HEADERS[32] = "OT2";
+        HEADERS[37] = "OT1";
+    }
+
+    private final int workers, files, sheets, days;
+    private final double overlap;
+    private final long seed;
+    private final String[] gradeCodes;
+    private int rowAccessWindow = 100;
+
+    /**
+     * Constructor to initialise a TimesheetGenerator.
+     * Workers are shared out evenly between the files, each file then also lists 'overlap' times as many
+     * workers again from the other files, so those workers are merged across files by the collator.
+     *
+     * @param workers - Amount of distinct workers across every file.
+     * @param files - Amount of files.
+     * @param sheets - Amount of sheets (weeks) per file.
+     * @param days - Amount of rows per worker per sheet.
+     * @param overlap - Share of each file's workers also listed in another file, 0 = none, 1 = as many again.
+     * @param seed - Seed for every random choice, the same settings and seed produce the same files.
+     * @param gradeCodes - Siemens grade codes to assign, a worker keeps the same code in every file.
+     * @throws IllegalArgumentException - If any amount is out of range.
+     */
+    public TimesheetGenerator(int workers, int files, int sheets, int days, double overlap, long seed,
+                              String[] gradeCodes) throws IllegalArgumentException {
+        if (workers < 1 || files < 1 || sheets < 1 || days < 1) {
+            throw new IllegalArgumentException("Workers, files, sheets and days must be at least 1!");
+        }
+        if (workers < files) {
+            throw new IllegalArgumentException("There must be at least one worker per file!");
+        }
+        if (overlap < 0) {
+            throw new IllegalArgumentException("Overlap cannot be negative!");
+        }
+        if (gradeCodes.length == 0) {
+            throw new IllegalArgumentException("At least one grade code is required!");
+        }
+        this.workers = workers;
+        this.files = files;
+        this.sheets = sheets;
+        this.days = days;
+        this.overlap = overlap;
+        this.seed = seed;
+        this.gradeCodes = gradeCodes.clone();
+    }
+
+    /**
+     * Method to set how many rows are kept in memory per sheet before they are flushed to disk.
+     *
+     * @param rowAccessWindow - Amount of rows, at least 1.
+     */
+    public void setRowAccessWindow(int rowAccessWindow) {
+        this.rowAccessWindow = Math.max(rowAccessWindow, 1);
+    }
+
+    /**
+     * Method to write every file into a folder, named 'Timesheet 0001.xlsx' onwards.
+     *
+     * @param folder - Folder to write to, created if it doesn't exist.
+     * @return - Amount of rows written, excluding headers.
+     * @throws IOException - If the folder or a file cannot be written.
+     */
+    public long generate(File folder) throws IOException {
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Failed to create the folder '" + folder.getPath() + "'.");
+        }
+        long rows = 0;
+        for (int file = 0; file < files; file++) {
+            File output = new File(folder, String.format("Timesheet %04d.xlsx", file + 1));
+            rows += generate(output, file);
+            System.out.println("Generated '" + output.getName() + "' (" + (file + 1) + "/" + files + ").");
+        }
+        return rows;
+    }
+
+    /**
+     * Helper method to write a single file.
+     *
+     * @param output - File to write to.
+     * @param file - Index of the file.
+     * @return - Amount of rows written, excluding headers.
+     * @throws IOException - If the file cannot be written.
+     */
+    private long generate(File output, int file) throws IOException {
+        long rows;
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, rowAccessWindow, true);
+        try {
+            rows = write(workbook, file);
+            try (FileOutputStream stream = new FileOutputStream(output)) {
+                workbook.write(stream);
+            }
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return rows;
+    }
+
+    /**
+     * Method to write the sheets of a single file into a Workbook, e.g. an XSSFWorkbook held in memory.
+     *
+     * @param workbook - Workbook to add the sheets to.
+     * @param file - Index of the file, amongst 'files'.
+     * @return - Amount of rows written, excluding headers.
+     */
+    public long write(Workbook workbook, int file) {
+        Random random = new Random(seed * 31 + file);
+        List<Integer> roster = getRoster(file, random);
+        long rows = 0;
+        for (int s = 0; s < sheets; s++) {
+            Sheet sheet = workbook.createSheet("Week " + (s + 1));
+            Row header = sheet.createRow(0);
+            for (int column = 0; column < COLUMNS; column++) {
+                header.createCell(column).setCellValue(HEADERS[column]);
+            }
+            int index = 1;
+            for (int worker : roster) {
+                for (int day = 0; day < days; day++) {
+                    writeRow(sheet.createRow(index++), worker, s, random);
+                }
+            }
+            rows += index - 1;
+        }
+        return rows;
+    }
+
+    /**
+     * Helper method to choose the workers listed in a file, its own share followed by any overlapping workers.
+     *
+     * @param file - Index of the file.
+     * @param random - Random for the file.
+     * @return - Worker ids, in the order they are written.
+     */
+    private List<Integer> getRoster(int file, Random random) {
+        int start = (int) ((long) workers * file / files);
+        int end = (int) ((long) workers * (file + 1) / files);
+        Set<Integer> roster = new LinkedHashSet<>();
+        for (int worker = start; worker < end; worker++) {
+            roster.add(worker);
+        }
+        int others = workers - (end - start);
+        int shared = (int) Math.min(Math.round(overlap * (end - start)), others);
+        while (shared > 0) {
+            int worker = random.nextInt(others);
+            if (roster.add(worker < start ? worker : worker + (end - start))) {
+                shared--;
+            }
+        }
+        return new ArrayList<>(roster);
+    }
+
+    /**
+     * Helper method to write a single Timesheet row.
+     *
+     * @param row - Row to write to.
+     * @param worker - Id of the worker.
+     * @param week - Index of the sheet.
+     * @param random - Random for the file.
+     */
+    private void writeRow(Row row, int worker, int week, Random random) {
+        row.createCell(0).setCellValue(getLastName(worker));
+        row.createCell(1).setCellValue(getFirstName(worker));
+        row.createCell(2).setCellValue(100000 + worker);
+        row.createCell(3).setCellValue("Site " + (worker % 12 + 1));
+        row.createCell(4).setCellValue("P" + (worker % 40 + 1000));
+        row.createCell(5).setCellValue(worker % 5 == 0 ? "Supervisor" : "Operative");
+        row.createCell(6).setCellValue("Week " + (week + 1));
+        row.createCell(7).setCellValue(getLastName(worker - worker % 10));
+        row.createCell(8).setCellValue(random.nextBoolean() ? "Day" : "Night");
+        row.createCell(9).setCellValue("CC" + (worker % 7));
+        row.createCell(10).setCellValue("");
+        row.createCell(11).setCellValue(getGradeCode(worker));
+        for (int column = 12; column < COLUMNS; column++) {
+            row.createCell(column).setCellValue(getValue(column, random));
+        }
+    }
+
+    /**
+     * Helper method to generate a value for a column, in steps of a quarter of an hour.
+     *
+     * @param column - Column index.
+     * @param random - Random for the file.
+     * @return - Value.
+     */
+    private double getValue(int column, Random random) {
+        switch (column) {
+            case 12: // Days
+            case 17: // Nights
+                return random.nextInt(49) / 4.0;
+            case 13: // Bonus
+                return 0;
+            case 15: // Travel Hours
+                return random.nextInt(13) / 4.0;
+            case 27: // Radius
+                return random.nextInt(51);
+            case 32: // OT2
+            case 37: // OT1
+                return random.nextInt(17) / 4.0;
+            default:
+                return random.nextInt(9) / 4.0;
+        }
+    }
+
+    private String getLastName(int worker) {
+        return LAST_NAMES[worker % LAST_NAMES.length];
+    }
+
+    /**
+     * Helper method to name a worker, names repeat every 400 workers so a number is added beyond that.
+     *
+     * @param worker - Id of the worker.
+     * @return - First name, unique together with the last name.
+     */
+    private String getFirstName(int worker) {
+        int names = LAST_NAMES.length * FIRST_NAMES.length;
+        String first = FIRST_NAMES[worker / LAST_NAMES.length % FIRST_NAMES.length];
+        return worker < names ? first : first + " " + (worker / names);
+    }
+
+    private String getGradeCode(int worker) {
+        return gradeCodes[new Random(seed ^ (worker * 0x9E3779B97F4A7C15L)).nextInt(gradeCodes.length)];
+    }
+
+    /**
+     * Method to read the Siemens grade codes from 'rates.properties' in the current directory,
+     * so generated workers are priced by the collator run alongside it.
+     *
+     * @return - Grade codes, or the default codes if the properties cannot be loaded.
+     */
+    public static String[] loadGradeCodes() {
+        Configuration properties = new Configuration("rates.properties");
+        try {
+            properties.loadProperties();
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("Failed to load 'rates.properties', using the default grade codes.");
+            return DEFAULT_GRADE_CODES.clone();
+        }
+        List<String> codes = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            String code = properties.getPropertyAsString("grade" + i);
+            if (code != null && !code.trim().isEmpty()) {
+                codes.add(code.trim());
+            }
+        }
+        return codes.isEmpty() ? DEFAULT_GRADE_CODES.clone() : codes.toArray(new String[0]);
+    }
+
+    /**
+     * Generates Timesheets from the command line, for example:
+     * java -cp "out/bench:out/main:jars/*" ac.uk.zpq19yru.tools.TimesheetGenerator --workers=100000 --files=20
+     *
+     * @param args - Options in the form '--name=value', see 'printUsage()'.
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (!arg.startsWith("--") || split < 0) {
+                printUsage();
+                return;
+            }
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        try {
+            TimesheetGenerator generator = new TimesheetGenerator(
+                    Integer.parseInt(options.getOrDefault("workers", "1000")),
+                    Integer.parseInt(options.getOrDefault("files", "10")),
+                    Integer.parseInt(options.getOrDefault("sheets", "4")),
+                    Integer.parseInt(options.getOrDefault("days", "1")),
+                    Double.parseDouble(options.getOrDefault("overlap", "0.1")),
+                    Long.parseLong(options.getOrDefault("seed", "1")),
+                    loadGradeCodes()
+            );
+            generator.setRowAccessWindow(Integer.parseInt(options.getOrDefault("window", "100")));
+            File folder = new File(options.getOrDefault("output", "Generated Timesheets"));
+            long start = System.currentTimeMillis();
+            long rows = generator.generate(folder);
+            System.out.println("Generated " + rows + " rows into '" + folder.getPath() + "' in "
+                    + (System.currentTimeMillis() - start) + "ms.");
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            printUsage();
+        } catch (IOException ex) {
+            System.err.println("Failed to generate the Timesheets: " + ex.getMessage());
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Options (all optional):");
+        System.out.println("  --workers=1000   Distinct workers across every file.");
+        System.out.println("  --files=10       Files to generate.");
+        System.out.println("  --sheets=4       Sheets (weeks) per file.");
+        System.out.println("  --days=1         Rows per worker per sheet.");
+        System.out.println("  --overlap=0.1    Share of each file's workers also listed in another file.");
+        System.out.println("  --seed=1         Seed, the same options and seed produce the same files.");
+        System.out.println("  --window=100     Rows kept in memory per sheet whilst writing.");
+        System.out.println("  --output=\"Generated Timesheets\"  Folder to write to.");
+    }
+
+}
@@ -0,0 +1,350 @@
+package ac.uk.zpq19yru;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru
+    Class Purpose:  Command-line options of a headless batch run.
+
+*/
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BatchOptions {
+
+    private static final int MAX_PARTITION_NAME = 22; // Sheet names are limited to 31, 'Expenses' is added.
+    private static final String INVALID_PARTITION_CHARACTERS = "[]:*?/\\<>|\"";
+
+    public static final String USAGE = String.join("\n",
+            "Usage: java -jar PayrollCollator.jar [options]",
+            "Runs headless when any option is given, without waiting or opening a console window.",
+            "  -i, --input <folder>   Folder to scan for Timesheets, may be repeated (default: current directory).",
+            "  -o, --output <file>    Output File (default: '" + Main.OUTPUT_FILE_NAME + "'), the cache and",
+            "                         metrics are saved alongside it.",
+            "  -t, --threads <n>      Threads used to scan and read, 0 = one per processor (default: rates file).",
+            "  -r, --rates <file>     Properties File of rates and settings (default: 'rates.properties').",
+            "  -e, --export <format>  Also export the Summary, Hours and Expenses alongside the Output File, as",
+            "                         'csv', 'tsv' or 'none' (default: rates file).",
+            "  -q, --quiet            Only print errors.",
+            "  -w, --watch            Keep running and update the Output File as Timesheets change, until Ctrl+C.",
+            "  -s, --serve <port>     Watch, and serve the collated Timesheets over HTTP on the port given.",
+            "  -p, --partition <name>=<folder or pattern>",
+            "                         Collate a partition of the Timesheets on its own, may be repeated. A folder",
+            "                         is scanned, a file name pattern (e.g. '*Week 1*.xlsx') selects Timesheets",
+            "                         within the inputs. Each is saved to '<output> - <name>.xlsx'.",
+            "      --combined         Save every partition to the Output File instead, as '<name> Summary',",
+            "                         '<name> Hours' and '<name> Expenses' sheets.",
+            "      --batch            Run headless with every default.",
+            "  -h, --help             Print this message.",
+            "Exit codes: 0 = saved (or stopped watching), 1 = failed, 2 = invalid options,",
+            "            3 = no Timesheets collected, 4 = saved but some Timesheets couldn't be read."
+    );
+
+    private final List<File> inputs = new ArrayList<>();
+    private File output = new File(Main.OUTPUT_FILE_NAME);
+    private String rates = "rates.properties";
+    private int threads = -1;
+    private String export;
+    private boolean quiet;
+    private boolean watch;
+    private int port = -1;
+    private final LinkedHashMap<String, String> partitions = new LinkedHashMap<>();
+    private boolean combined;
+    private boolean help;
+
+    /**
+     * Method to parse the arguments given to 'Main'.
+     *
+     * @param args - Command-line arguments.
+     * @return - BatchOptions, defaults are used for anything not given.
+     * @throws IllegalArgumentException - If an option is unknown, is missing its value or its value isn't valid.
+     */
+    public static BatchOptions parse(String[] args) throws IllegalArgumentException {
+        BatchOptions options = new BatchOptions();
+        boolean ratesGiven = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-i":
+                case "--input":
+                    File input = new File(getValue(args, ++i, arg));
+                    if (!input.isDirectory()) {
+                        throw new IllegalArgumentException("Input '" + input + "' isn't a folder!");
+                    }
+                    options.inputs.add(input);
+                    break;
+                case "-o":
+                case "--output":
+                    options.output = new File(getValue(args, ++i, arg));
+                    if (!options.output.getName().toLowerCase().endsWith(".xlsx")) {
+                        throw new IllegalArgumentException("Output '" + options.output + "' must be an '.xlsx' file!");
+                    }
+                    break;
+                case "-t":
+                case "--threads":
+                    String threads = getValue(args, ++i, arg);
+                    try {
+                        options.threads = Integer.parseInt(threads);
+                    } catch (NumberFormatException ex) {
+                        options.threads = -1;
+                    }
+                    if (options.threads < 0) {
+                        throw new IllegalArgumentException("Threads '" + threads + "' must be 0 or more!");
+                    }
+                    break;
+                case "-r":
+                case "--rates":
+                    options.rates = getValue(args, ++i, arg);
+                    ratesGiven = true;
+                    break;
+                case "-e":
+                case "--export":
+                    options.export = getValue(args, ++i, arg).trim().toLowerCase();
+                    if (!options.export.equals("csv") && !options.export.equals("tsv")
+                            && !options.export.equals("none")) {
+                        throw new IllegalArgumentException("Export '" + options.export
+                                + "' must be 'csv', 'tsv' or 'none'!");
+                    }
+                    break;
+                case "-q":
+                case "--quiet":
+                    options.quiet = true;
+                    break;
+                case "-w":
+                case "--watch":
+                    options.watch = true;
+                    break;
+                case "-s":
+                case "--serve":
+                    String port = getValue(args, ++i, arg);
+                    try {
+                        options.port = Integer.parseInt(port);
+                    } catch (NumberFormatException ex) {
+                        options.port = -1;
+                    }
+                    if (options.port < 0 || options.port > 65535) {
+                        throw new IllegalArgumentException("Port '" + port + "' must be between 0 and 65535!");
+                    }
+                    options.watch = true;
+                    break;
+                case "-p":
+                case "--partition":
+                    options.addPartition(getValue(args, ++i, arg));
+                    break;
+                case "--combined":
+                    options.combined = true;
+                    break;
+                case "--batch":
+                    break;
+                case "-h":
+                case "--help":
+                    options.help = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option '" + arg + "'!");
+            }
+        }
+        if (options.combined && options.partitions.isEmpty()) {
+            throw new IllegalArgumentException("Option '--combined' requires at least one '--partition'!");
+        }
+        if (options.watch && !options.partitions.isEmpty()) {
+            throw new IllegalArgumentException("Partitions cannot be watched or served!");
+        }
+        if (ratesGiven && !new File(options.rates).isFile()) {
+            throw new IllegalArgumentException("Rates file '" + options.rates + "' doesn't exist!");
+        }
+        if (options.inputs.isEmpty()) {
+            options.inputs.add(new File("."));
+        }
+        return options;
+    }
+
+    /**
+     * Method to create the options of an interactive run, which uses every default.
+     *
+     * @return - BatchOptions.
+     */
+    public static BatchOptions defaults() {
+        return parse(new String[0]);
+    }
+
+    /**
+     * Helper method to add a partition given as '<name>=<folder or pattern>'.
+     * The name becomes part of a file name and of sheet names, so it is kept short and free of their
+     * invalid characters. A value containing '*', '?', '[' or '{' is a pattern, anything else must be a folder.
+     *
+     * @param partition - Partition given on the command-line.
+     * @throws IllegalArgumentException - If the name or value isn't valid, or the name is already used.
+     */
+    private void addPartition(String partition) throws IllegalArgumentException {
+        int split = partition.indexOf('=');
+        String name = split < 0 ? "" : partition.substring(0, split).trim();
+        String value = split < 0 ? "" : partition.substring(split + 1).trim();
+        if (name.isEmpty() || value.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Partition '" + partition + "' must be given as <name>=<folder or pattern>!"
+            );
+        }
+        if (name.length() > MAX_PARTITION_NAME) {
+            throw new IllegalArgumentException("Partition name '" + name + "' must be at most "
+                    + MAX_PARTITION_NAME + " characters!");
+        }
+        for (char c : name.toCharArray()) {
+            if (INVALID_PARTITION_CHARACTERS.indexOf(c) >= 0 || Character.isISOControl(c)) {
+                throw new IllegalArgumentException("Partition name '" + name + "' cannot contain '" + c + "'!");
+            }
+        }
+        for (String existing : partitions.keySet()) {
+            if (existing.equalsIgnoreCase(name)) {
+                throw new IllegalArgumentException("Partition '" + name + "' is given more than once!");
+            }
+        }
+        if (!isPattern(value) && !new File(value).isDirectory()) {
+            throw new IllegalArgumentException("Partition '" + name + "' must be a folder or a file name pattern!");
+        }
+        partitions.put(name, value);
+    }
+
+    /**
+     * Method to determine if the value of a partition is a file name pattern, rather than a folder.
+     *
+     * @param value - Value of the partition.
+     * @return - true = pattern, false = folder.
+     */
+    public static boolean isPattern(String value) {
+        return value.indexOf('*') >= 0 || value.indexOf('?') >= 0 || value.indexOf('[') >= 0
+                || value.indexOf('{') >= 0;
+    }
+
+    /**
+     * Helper method to get the value following an option.
+     *
+     * @param args - Command-line arguments.
+     * @param index - Index of the value.
+     * @param option - Option the value belongs to.
+     * @return - Value.
+     * @throws IllegalArgumentException - If the value is missing.
+     */
+    private static String getValue(String[] args, int index, String option) throws IllegalArgumentException {
+        if (index >= args.length || args[index].isEmpty()) {
+            throw new IllegalArgumentException("Option '" + option + "' requires a value!");
+        }
+        return args[index];
+    }
+
+    /**
+     * Method to return the folders scanned for Timesheets.
+     *
+     * @return - Read-only list of folders, in the order given.
+     */
+    public List<File> getInputs() {
+        return Collections.unmodifiableList(inputs);
+    }
+
+    public File getOutput() {
+        return output;
+    }
+
+    /**
+     * Method to return the cache saved alongside the Output File, e.g. 'UKERLTD - Output.cache'.
+     *
+     * @return - Cache File.
+     */
+    public File getCacheFile() {
+        return getSibling(".cache");
+    }
+
+    /**
+     * Method to return the metrics saved alongside the Output File, e.g. 'UKERLTD - Output.metrics.json'.
+     *
+     * @return - Metrics File.
+     */
+    public File getMetricsFile() {
+        return getSibling(".metrics.json");
+    }
+
+    public String getRates() {
+        return rates;
+    }
+
+    /**
+     * Method to return the amount of threads requested.
+     *
+     * @return - Threads, 0 = one per processor, -1 = use the rates file.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Method to return the format the collated data is exported in.
+     *
+     * @return - 'csv', 'tsv', 'none', or null to use the rates file.
+     */
+    public String getExport() {
+        return export;
+    }
+
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Method to return the port to serve the collated Timesheets on.
+     *
+     * @return - Port, 0 = any free port, -1 = don't serve.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Method to return the partitions to collate on their own.
+     *
+     * @return - Read-only map of each name to its folder or pattern, in the order given, empty for a single run.
+     */
+    public Map<String, String> getPartitions() {
+        return Collections.unmodifiableMap(partitions);
+    }
+
+    public boolean isCombined() {
+        return combined;
+    }
+
+    /**
+     * Method to return the Output File of a partition saved on its own, e.g. 'UKERLTD - Output - Week 1.xlsx'.
+     *
+     * @param name - Name of the partition.
+     * @return - Output File.
+     */
+    public File getPartitionOutput(String name) {
+        return getSibling(" - " + name + ".xlsx");
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    /**
+     * Helper method to get a file next to the Output File, named after it.
+     *
+     * @param extension - Extension replacing '.xlsx'.
+     * @return - File.
+     */
+    private File getSibling(String extension) {
+        String name = output.getName();
+        return new File(output.getAbsoluteFile().getParentFile(), name.substring(0, name.length() - 5) + extension);
+    }
+
+}
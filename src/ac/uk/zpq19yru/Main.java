@@ -13,24 +13,88 @@ package ac.uk.zpq19yru;
 import ac.uk.zpq19yru.exceptions.WorkbookNotValidException;
 import ac.uk.zpq19yru.objects.Configuration;
 import ac.uk.zpq19yru.objects.Grade;
+import ac.uk.zpq19yru.objects.RateTable;
+import ac.uk.zpq19yru.objects.SheetFilter;
+import ac.uk.zpq19yru.process.AggregateCache;
+import ac.uk.zpq19yru.process.CollationServer;
+import ac.uk.zpq19yru.process.CollationPipeline;
+import ac.uk.zpq19yru.process.ColumnPlan;
+import ac.uk.zpq19yru.process.DelimitedOutputWriter;
+import ac.uk.zpq19yru.process.DocumentScanner;
+import ac.uk.zpq19yru.process.PartitionedCollation;
 import ac.uk.zpq19yru.process.PayrollCollator;
+import ac.uk.zpq19yru.process.PerformanceReport;
+import ac.uk.zpq19yru.process.StreamingOutputWriter;
+import ac.uk.zpq19yru.process.TimesheetWatcher;
 
 import java.awt.*;
 import java.io.Console;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class Main {
 
     public static final String SPACER = "=====================================================================";
     public static final String NL_SPACER = "\n" + SPACER + "\n";
     public static final String OUTPUT_FILE_NAME = "UKERLTD - Output.xlsx";
+    public static final String CACHE_FILE_NAME = "UKERLTD - Output.cache";
+    public static final String METRICS_FILE_NAME = "UKERLTD - Output.metrics.json";
     public static int[] invalid = new int[] {
             14, 16, 18, 19, 20, 21, 22, 23, 24, 25, 26, 28, 29, 30, 31, 33, 34, 35, 36
     };
 
+    public static final int EXIT_SUCCESS = 0;       // Output File saved.
+    public static final int EXIT_FAILURE = 1;       // Settings or Output File couldn't be loaded/saved.
+    public static final int EXIT_USAGE = 2;         // Invalid command-line options.
+    public static final int EXIT_NO_DOCUMENTS = 3;  // No Timesheets were collected.
+    public static final int EXIT_PARTIAL = 4;       // Output File saved, but some Timesheets couldn't be read.
+
     public static void main(String[] args) {
 
+        if (args.length > 0) {
+            BatchOptions options;
+            try {
+                options = BatchOptions.parse(args);
+            } catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.err.println(BatchOptions.USAGE);
+                System.exit(EXIT_USAGE);
+                return;
+            }
+            if (options.isHelp()) {
+                System.out.println(BatchOptions.USAGE);
+                return;
+            }
+            if (options.isQuiet()) {
+                System.setOut(new PrintStream(new OutputStream() {
+                    @Override
+                    public void write(int b) {}
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {}
+                }));
+            }
+            printBanner();
+            if (options.isWatch()) {
+                int code = watch(options);
+                if (code != EXIT_SUCCESS) {
+                    System.exit(code);
+                }
+                return; // Stopped by the shutdown hook, which System.exit would wait on forever.
+            }
+            System.exit(options.getPartitions().isEmpty() ? run(options) : runPartitions(options));
+            return;
+        }
+
         Console console = System.console();
         if(console == null && !GraphicsEnvironment.isHeadless()){
             String filename = Main.class.getProtectionDomain().getCodeSource().getLocation().toString().substring(6)
@@ -43,6 +107,33 @@ public class Main {
             return;
         }
 
+        printBanner();
+
+        try {
+            System.out.println("Waiting 5 Seconds before Proceeding.");
+            System.out.println(NL_SPACER);
+            Thread.sleep(5000);
+        } catch (InterruptedException ignored) {
+            System.err.println("Could not wait for 5 full seconds, continuing regardless.");
+        }
+
+        run(BatchOptions.defaults());
+
+        System.out.println(NL_SPACER);
+
+        try {
+            System.out.println("Closing this menu in 10 seconds.");
+            System.out.println(NL_SPACER);
+            Thread.sleep(10000);
+        } catch (InterruptedException ignored) {}
+
+
+    }
+
+    /**
+     * Method to print the name and version of the program.
+     */
+    private static void printBanner() {
         System.out.println(SPACER);
         System.out.println(
                         "   ___                      _ _     ___      _ _       _             \n" +
@@ -55,30 +146,502 @@ public class Main {
         System.out.println("\nVersion: 1.0");
         System.out.println("Created By Callum Johnson.");
         System.out.println(NL_SPACER);
+    }
+
+    /**
+     * Method to collate every Timesheet within the input folders into the Output File.
+     *
+     * @param options - Folders, Output File, threads and rates file to use.
+     * @return - EXIT_SUCCESS, EXIT_FAILURE, EXIT_NO_DOCUMENTS or EXIT_PARTIAL.
+     */
+    public static int run(BatchOptions options) {
+        Configuration properties = loadProperties(options);
+        if (properties == null) {
+            return EXIT_FAILURE;
+        }
+
+        PerformanceReport report = new PerformanceReport();
+        PerformanceReport.Phase phase = report.start("setup");
+
+        int threads = options.getThreads() >= 0 ? options.getThreads() : properties.getPropertyAsInt("threads", 0);
+        PayrollCollator collator = createCollator(properties, options, threads);
+        if (collator == null) {
+            report.close();
+            return EXIT_FAILURE;
+        }
+        boolean streaming = properties.getPropertyAsBoolean("reader_streaming", true);
+        AggregateCache cache = createCache(properties, options, collator);
+
+        boolean pipeline = properties.getPropertyAsBoolean("pipeline", true);
+        report.setSetting("threads", threads);
+        report.setSetting("pipeline", pipeline);
+        report.setSetting("reader_streaming", streaming);
+        report.setSetting("writer_streaming", properties.getPropertyAsBoolean("writer_streaming", true));
+        report.setSetting("cache", cache != null);
+        phase.end();
+
+        int errors;
+        if (pipeline) {
+            errors = collectPipelined(
+                    collator, properties.getPropertyAsInt("pipeline_window", 0), options.getInputs(), report
+            );
+        } else {
+            errors = collectInPhases(collator, streaming, options.getInputs(), report);
+        }
+        if (errors < 0) {
+            report.close();
+            return EXIT_NO_DOCUMENTS;
+        }
+
+        saveCache(cache, report);
+
+        System.out.println(NL_SPACER);
+
+        System.out.println("Setting Paygrades using Siemens' Paycodes.");
+        phase = report.start("paygrades");
+        collator.setupPaygrades();
+        phase.count("workers", collator.getWorkers().size()).end();
+
+        System.out.println(NL_SPACER);
 
+        System.out.println("Outputting Data to the Output File!");
+        phase = report.start("output");
+        boolean saved = false;
         try {
-            System.out.println("Waiting 5 Seconds before Proceeding.");
+            saved = collator.outputData();
+        } catch (WorkbookNotValidException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+        phase.count("workers", collator.getWorkers().size()).end();
+
+        if (saved) {
+            System.out.println("Saved data to the Output Workbook!");
+        } else {
+            System.err.println("Failed to save data to the Output Workbook!");
+        }
+
+        if (saved && collator.getExportWriter() != null) {
             System.out.println(NL_SPACER);
-            Thread.sleep(5000);
-        } catch (InterruptedException ignored) {
-            System.err.println("Could not wait for 5 full seconds, continuing regardless.");
+
+            System.out.println("Exporting Data for the payroll system!");
+            phase = report.start("export");
+            long exported = collator.exportData(options.getOutput());
+            phase.count("workers", collator.getWorkers().size()).count("bytes", Math.max(exported, 0)).end();
+            saved = printExported(collator.getExportWriter(), options.getOutput(), exported);
+        }
+
+        System.out.println(NL_SPACER);
+
+        System.out.println("Clearing stored data (inside program)");
+        collator.shutdown();
+        System.out.println("Cleared. Process Finished.");
+
+        saveMetrics(properties, options, report);
+
+        if (!saved) {
+            return EXIT_FAILURE;
+        }
+        return errors > 0 ? EXIT_PARTIAL : EXIT_SUCCESS;
+    }
+
+    /**
+     * Method to collate each partition of the Timesheets on its own, several partitions at once, into an Output
+     * File per partition or a single Output File with a set of sheets per partition. The rates and settings
+     * are loaded, and the Paygrades parsed, once for every partition.
+     *
+     * @param options - Partitions, folders, Output File, threads and rates file to use.
+     * @return - EXIT_SUCCESS, EXIT_FAILURE, EXIT_NO_DOCUMENTS or EXIT_PARTIAL (including a partition without
+     *           any collected Timesheets).
+     */
+    public static int runPartitions(BatchOptions options) {
+        Configuration properties = loadProperties(options);
+        if (properties == null) {
+            return EXIT_FAILURE;
+        }
+
+        PerformanceReport report = new PerformanceReport();
+        PerformanceReport.Phase phase = report.start("setup");
+
+        // Threads are split between the partitions collected at once, rather than each collator taking them all.
+        int threads = options.getThreads() >= 0 ? options.getThreads() : properties.getPropertyAsInt("threads", 0);
+        int available = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        Map<String, String> partitions = options.getPartitions();
+        int parallelism = Math.min(partitions.size(), available);
+        int partitionThreads = Math.max(1, available / parallelism);
+        boolean pipeline = properties.getPropertyAsBoolean("pipeline", true);
+        boolean streaming = properties.getPropertyAsBoolean("reader_streaming", true);
+        PartitionedCollation collation = new PartitionedCollation(
+                parallelism, pipeline, streaming, properties.getPropertyAsInt("pipeline_window", 0)
+        );
+
+        System.out.println("Creating Paygrades, shared by " + partitions.size() + " partitions.");
+        List<Grade> grades = loadGrades(properties);
+        for (Grade grade : grades) {
+            System.out.println("Added Grade: '" + grade + "'");
+        }
+        RateTable rateTable = new RateTable(grades);
+
+        System.out.println(NL_SPACER);
+
+        AggregateCache cache = null;
+        List<String> includes = DocumentScanner.splitPatterns(properties.getPropertyAsString("scan_include"));
+        for (Map.Entry<String, String> partition : partitions.entrySet()) {
+            String name = partition.getKey();
+            boolean pattern = BatchOptions.isPattern(partition.getValue());
+            PayrollCollator collator = newCollator(properties, options, partitionThreads,
+                    pattern ? DocumentScanner.splitPatterns(partition.getValue()) : includes);
+            collator.setPaygrades(rateTable);
+            if (!options.isCombined()) {
+                try {
+                    collator.createOutputWorkbook(options.getPartitionOutput(name));
+                } catch (IllegalStateException ex) {
+                    System.err.println("Failed to create the Output Workbook of partition '" + name + "'!");
+                    report.close();
+                    return EXIT_FAILURE;
+                }
+            }
+            if (collation.getPartitions().isEmpty()) {
+                cache = createCache(properties, options, collator);
+            } else if (cache != null) {
+                collator.setCache(cache);
+            }
+            collation.addPartition(name, collator,
+                    pattern ? options.getInputs() : Collections.singletonList(new File(partition.getValue())));
+        }
+
+        report.setSetting("threads", threads);
+        report.setSetting("partitions", partitions.size());
+        report.setSetting("partition_threads", partitionThreads);
+        report.setSetting("combined", options.isCombined());
+        report.setSetting("pipeline", pipeline);
+        report.setSetting("reader_streaming", streaming);
+        report.setSetting("writer_streaming", properties.getPropertyAsBoolean("writer_streaming", true));
+        report.setSetting("cache", cache != null);
+        phase.end();
+
+        System.out.println("Collecting " + partitions.size() + " partitions, " + parallelism + " at a time.");
+        phase = report.start("partitions");
+        int[] results = collation.collect();
+        long files = 0, sheets = 0, rows = 0, cells = 0, workers = 0;
+        System.out.println(NL_SPACER);
+        for (PartitionedCollation.Partition partition : collation.getPartitions()) {
+            int[] data = partition.getResults();
+            long[] collected = partition.getCollator().getCollectedStatistics();
+            int men = partition.getCollator().getWorkers().size();
+            files += data[1];
+            sheets += collected[0];
+            rows += collected[1];
+            cells += collected[2];
+            workers += men;
+            System.out.println("Partition '" + partition.getName() + "': out of " + data[0] + " documents, "
+                    + data[1] + " documents have been collected, with " + data[2] + " errors and " + men + " Men.");
+            if (!partition.isCollected()) {
+                System.err.println("Partition '" + partition.getName()
+                        + "' has no collected files, it won't be saved.");
+            }
+        }
+        phase.count("partitions", results[0]).count("files", files).count("sheets", sheets).count("rows", rows)
+                .count("cells", cells).count("workers", workers).end();
+
+        if (results[0] <= 0) {
+            System.out.println("\n" + SPACER);
+            System.out.println("As there is no collected files, the process will exit.");
+            System.out.println(SPACER);
+            report.close();
+            return EXIT_NO_DOCUMENTS;
+        }
+
+        saveCache(cache, report);
+
+        System.out.println(NL_SPACER);
+
+        System.out.println(options.isCombined() ? "Outputting every partition to the Output File!"
+                : "Outputting each partition to its own Output File!");
+        phase = report.start("output");
+        boolean saved = options.isCombined()
+                ? collation.outputCombined(options.getOutput(), createOutputWriter(properties))
+                : collation.outputSeparately();
+        phase.count("partitions", results[0]).count("workers", workers).end();
+
+        String outputs = options.isCombined() ? "Workbook!" : "Workbooks!";
+        if (saved) {
+            System.out.println("Saved data to the Output " + outputs);
+        } else {
+            System.err.println("Failed to save data to the Output " + outputs);
+        }
+
+        if (saved && collation.getPartitions().get(0).getCollator().getExportWriter() != null) {
+            System.out.println(NL_SPACER);
+
+            System.out.println("Exporting Data of each partition for the payroll system!");
+            phase = report.start("export");
+            long exported = collation.export(options.isCombined() ? options.getOutput() : null);
+            phase.count("partitions", results[0]).count("workers", workers).count("bytes", Math.max(exported, 0))
+                    .end();
+            if (exported >= 0) {
+                System.out.println("Exported " + exported + " bytes of data.");
+            } else {
+                System.err.println("Failed to export the data!");
+                saved = false;
+            }
+        }
+
+        System.out.println(NL_SPACER);
+
+        System.out.println("Clearing stored data (inside program)");
+        collation.shutdown();
+        System.out.println("Cleared. Process Finished.");
+
+        saveMetrics(properties, options, report);
+
+        if (!saved) {
+            return EXIT_FAILURE;
+        }
+        return results[1] > 0 || results[0] < partitions.size() ? EXIT_PARTIAL : EXIT_SUCCESS;
+    }
+
+    /**
+     * Method to collate every Timesheet within the input folders, then keep running and update the Output File
+     * whenever they change, until the program is stopped (Ctrl+C). If a port is given, the collated Timesheets
+     * are also served over HTTP, see 'CollationServer'.
+     *
+     * @param options - Folders, Output File, threads and rates file to use.
+     * @return - EXIT_SUCCESS once stopped, or EXIT_FAILURE if watching couldn't start.
+     */
+    public static int watch(BatchOptions options) {
+        Configuration properties = loadProperties(options);
+        if (properties == null) {
+            return EXIT_FAILURE;
+        }
+        int threads = options.getThreads() >= 0 ? options.getThreads() : properties.getPropertyAsInt("threads", 0);
+        PayrollCollator collator = createCollator(properties, options, threads);
+        if (collator == null) {
+            return EXIT_FAILURE;
+        }
+        AggregateCache cache = createCache(properties, options, collator);
+
+        List<File> written = new ArrayList<>(Arrays.asList(options.getOutput(), options.getMetricsFile()));
+        if (collator.getExportWriter() != null) {
+            written.addAll(collator.getExportWriter().getFiles(options.getOutput()));
+        }
+        TimesheetWatcher watcher;
+        try {
+            watcher = new TimesheetWatcher(collator, options.getInputs(),
+                    properties.getPropertyAsInt("watch_debounce", 2000),
+                    properties.getPropertyAsInt("watch_max_delay", 10000),
+                    written
+            );
+        } catch (IOException exception) {
+            System.err.println("Failed to watch " + describe(options.getInputs()) + " for changes.");
+            return EXIT_FAILURE;
+        }
+        watcher.setCache(cache);
+
+        CollationServer server = null;
+        if (options.getPort() >= 0) {
+            String address = properties.getPropertyAsString("server_address");
+            String uploadFolder = properties.getPropertyAsString("server_uploads");
+            File uploads = uploadFolder == null || uploadFolder.trim().isEmpty() ? options.getInputs().get(0)
+                    : new File(options.getInputs().get(0), uploadFolder.trim());
+            try {
+                Files.createDirectories(uploads.toPath());
+                server = new CollationServer(watcher, collator,
+                        new InetSocketAddress(address == null || address.trim().isEmpty() ? "127.0.0.1"
+                                : address.trim(), options.getPort()),
+                        properties.getPropertyAsInt("server_threads", 16), uploads,
+                        properties.getPropertyAsInt("server_max_upload_mb", 50) * 1024L * 1024L
+                );
+            } catch (IOException | IllegalArgumentException | SecurityException exception) {
+                System.err.println("Failed to serve on port " + options.getPort() + ".");
+                watcher.close();
+                return EXIT_FAILURE;
+            }
         }
+        CollationServer service = server;
+
+        Thread running = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (service != null) {
+                service.close();
+            }
+            watcher.close();
+            try {
+                running.join(30000); // Let an update in progress finish saving the Output File.
+            } catch (InterruptedException ignored) {}
+        }, "Collator-Shutdown"));
+
+        System.out.println("Watching " + describe(options.getInputs()) + " for changes, press Ctrl+C to stop.");
+        System.out.println(NL_SPACER);
+        if (service != null) {
+            service.start();
+        }
+        watcher.run();
+
+        System.out.println(NL_SPACER);
+        System.out.println("Stopped watching, clearing stored data (inside program)");
+        collator.shutdown();
+        return EXIT_SUCCESS;
+    }
 
-        Configuration properties = new Configuration("rates.properties");
+    /**
+     * Method to load the rates and settings.
+     *
+     * @param options - Options naming the rates file.
+     * @return - Configuration, or null if it couldn't be loaded.
+     */
+    private static Configuration loadProperties(BatchOptions options) {
+        Configuration properties = new Configuration(options.getRates());
 
         try {
             properties.loadProperties();
         } catch (IOException exception) {
-            System.out.println(
+            System.err.println(
                     "Failed to load properties from the file. Please Contact Callum and DO NOT delete the Output files."
             );
-            return;
+            return null;
         }
+        return properties;
+    }
 
-        PayrollCollator collator = new PayrollCollator();
+    /**
+     * Method to create a collator with the scanner, readers, writer and Paygrades of the settings, and create
+     * its Output File.
+     *
+     * @param properties - Rates and settings.
+     * @param options - Output File to use.
+     * @param threads - Threads used to scan and read, 0 = one per processor.
+     * @return - PayrollCollator, or null if the Output File couldn't be created.
+     */
+    private static PayrollCollator createCollator(Configuration properties, BatchOptions options, int threads) {
+        PayrollCollator collator = newCollator(properties, options, threads,
+                DocumentScanner.splitPatterns(properties.getPropertyAsString("scan_include")));
 
         System.out.println("Creating Paygrades.");
 
+        for (Grade grade : loadGrades(properties)) {
+            collator.addPaygrade(grade);
+        }
+
+        System.out.println(NL_SPACER);
+
+        System.out.println("Creating the Output Workbook.");
+        try {
+            collator.createOutputWorkbook(options.getOutput());
+        } catch (IllegalStateException ex) {
+            System.err.println("Failed to create the Output Workbook!");
+            return null;
+        }
+        System.out.println("Workbook Successfully Created.");
+
+        System.out.println(NL_SPACER);
+        return collator;
+    }
+
+    /**
+     * Method to create a collator with the scanner, readers and writer of the settings, without any Paygrades.
+     *
+     * @param properties - Rates and settings.
+     * @param options - Output Files, which are never scanned.
+     * @param threads - Threads used to scan and read, 0 = one per processor.
+     * @param includes - Patterns of the Timesheets to scan for, empty for any '.xlsx' file.
+     * @return - PayrollCollator.
+     */
+    private static PayrollCollator newCollator(Configuration properties, BatchOptions options, int threads,
+                                               List<String> includes) {
+        PayrollCollator collator = new PayrollCollator();
+        collator.setThreads(threads);
+        // Output Files (this run's, and any left by a run with the default name) are never Timesheets.
+        List<String> excludes = new ArrayList<>(
+                DocumentScanner.splitPatterns(properties.getPropertyAsString("scan_exclude"))
+        );
+        excludes.add(DocumentScanner.escapePattern(OUTPUT_FILE_NAME));
+        excludes.add(DocumentScanner.escapePattern(options.getOutput().getName()));
+        for (String partition : options.getPartitions().keySet()) {
+            excludes.add(DocumentScanner.escapePattern(options.getPartitionOutput(partition).getName()));
+        }
+        collator.setScanner(new DocumentScanner(
+                includes,
+                excludes,
+                properties.getPropertyAsInt("scan_max_depth", -1),
+                threads
+        ));
+        collator.setSheetFilter(new SheetFilter(
+                DocumentScanner.splitPatterns(properties.getPropertyAsString("sheet_include")),
+                DocumentScanner.splitPatterns(properties.getPropertyAsString("sheet_exclude")),
+                DocumentScanner.splitPatterns(properties.getPropertyAsString("sheet_headers"))
+        ));
+        collator.setStreamingInput(properties.getPropertyAsBoolean("reader_streaming", true));
+        collator.setOutputWriter(createOutputWriter(properties));
+        collator.setExportWriter(createExportWriter(properties, options));
+        return collator;
+    }
+
+    /**
+     * Method to create the streaming writer of the settings.
+     *
+     * @param properties - Rates and settings.
+     * @return - StreamingOutputWriter, or null if the Output Workbook is built in memory.
+     */
+    private static StreamingOutputWriter createOutputWriter(Configuration properties) {
+        if (!properties.getPropertyAsBoolean("writer_streaming", true)) {
+            return null;
+        }
+        return new StreamingOutputWriter(
+                properties.getPropertyAsInt("writer_window", 100),
+                properties.getPropertyAsBoolean("writer_compress", true)
+        );
+    }
+
+    /**
+     * Method to create the CSV/TSV writer of the options, or of the settings if no format was given.
+     * An invalid format in the settings is reported and nothing is exported, rather than failing the run.
+     *
+     * @param properties - Rates and settings.
+     * @param options - Format given on the command-line.
+     * @return - DelimitedOutputWriter, or null if nothing is exported.
+     */
+    private static DelimitedOutputWriter createExportWriter(Configuration properties, BatchOptions options) {
+        String format = options.getExport() != null ? options.getExport()
+                : properties.getPropertyAsString("export_format");
+        if (format == null || format.trim().isEmpty() || format.trim().equalsIgnoreCase("none")) {
+            return null;
+        }
+        try {
+            return new DelimitedOutputWriter(format, properties.getPropertyAsInt("export_buffer_kb", 64) * 1024);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage() + " Nothing will be exported.");
+            return null;
+        }
+    }
+
+    /**
+     * Method to print the files the collated data was exported to.
+     *
+     * @param exporter - Writer the data was exported with.
+     * @param outputFile - Output File the exported files are named after.
+     * @param exported - Amount of bytes written, or -1 if the files weren't saved.
+     * @return - true = exported, false = the files weren't saved.
+     */
+    private static boolean printExported(DelimitedOutputWriter exporter, File outputFile, long exported) {
+        if (exported < 0) {
+            System.err.println("Failed to export the data!");
+            return false;
+        }
+        for (int sheet = ColumnPlan.SUMMARY; sheet <= ColumnPlan.EXPENSES; sheet++) {
+            System.out.println("Exported data to '" + exporter.getFile(outputFile, sheet).getName() + "'.");
+        }
+        System.out.println("Exported " + exported + " bytes of data.");
+        return true;
+    }
+
+    /**
+     * Method to parse the Paygrades of the settings.
+     *
+     * @param properties - Rates and settings.
+     * @return - Grades 1 to 6, in order.
+     */
+    private static List<Grade> loadGrades(Configuration properties) {
+        List<Grade> grades = new ArrayList<>();
         for (int i = 1; i <= 6; i++) {
             String gradeId = "grade" + i;
             Grade grade = new Grade(gradeId, properties.getPropertyAsString(gradeId));
@@ -88,94 +651,202 @@ public class Main {
             grade.setOTB(properties.getPropertyAsDouble(gradeId + "_otb"));
             // grade.setBonus(properties.getPropertyAsDouble(gradeId + "_bonus"));
             grade.setTravel(properties.getPropertyAsDouble(gradeId + "_travel"));
-            collator.addPaygrade(grade);
+            grades.add(grade);
         }
+        return grades;
+    }
 
+    /**
+     * Method to load the cache of the Output File and set it on the collator, if the cache is enabled.
+     *
+     * @param properties - Rates and settings.
+     * @param options - Output File the cache is saved alongside.
+     * @param collator - Collator, with its readers already set.
+     * @return - AggregateCache, or null if the cache is disabled.
+     */
+    private static AggregateCache createCache(Configuration properties, BatchOptions options,
+                                              PayrollCollator collator) {
+        if (!properties.getPropertyAsBoolean("cache", true)) {
+            return null;
+        }
+        AggregateCache cache = new AggregateCache(options.getCacheFile(), collator.getCacheSignature());
+        System.out.println("Loaded " + cache.load() + " documents from the cache '"
+                + options.getCacheFile().getName() + "'.");
+        collator.setCache(cache);
         System.out.println(NL_SPACER);
+        return cache;
+    }
 
-        System.out.println("Creating the Output Workbook.");
-        try {
-            collator.createOutputWorkbook();
-        } catch (IllegalStateException ex) {
-            System.err.println("Failed to create the Output Workbook!");
+    /**
+     * Method to report how many documents were taken from the cache, then save it.
+     *
+     * @param cache - Cache, or null if the cache is disabled.
+     * @param report - Report to measure saving the cache in.
+     */
+    private static void saveCache(AggregateCache cache, PerformanceReport report) {
+        if (cache == null) {
             return;
         }
-        System.out.println("Workbook Successfully Created.");
+        PerformanceReport.Phase phase = report.start("cache");
+        int[] statistics = cache.getStatistics();
+        System.out.println(statistics[0] + " documents were unchanged and taken from the cache, "
+                + statistics[1] + " documents were read.");
+        try {
+            cache.save();
+        } catch (IOException exception) {
+            System.err.println("Failed to save the cache, every document will be read on the next run.");
+        }
+        phase.count("hits", statistics[0]).count("misses", statistics[1]).end();
+    }
 
-        System.out.println(NL_SPACER);
+    /**
+     * Method to close the report and save it alongside the Output File, if metrics are enabled.
+     *
+     * @param properties - Rates and settings.
+     * @param options - Metrics File to save to.
+     * @param report - Report of the run.
+     */
+    private static void saveMetrics(Configuration properties, BatchOptions options, PerformanceReport report) {
+        report.close();
+        if (properties.getPropertyAsBoolean("metrics", true)) {
+            try {
+                report.save(options.getMetricsFile());
+                System.out.println("Saved performance metrics to '" + options.getMetricsFile().getName() + "'.");
+            } catch (IOException exception) {
+                System.err.println("Failed to save the performance metrics.");
+            }
+        }
+    }
 
-        System.out.println("Collecting Documents from the current directory.");
-        collator.collectDocuments(new File("."));
+    /**
+     * Method to scan the input folders, read every relevant document and collect its data, one phase at a time.
+     *
+     * @param collator - Collator to collect the data into.
+     * @param streaming - true = stream each document, false = load every Workbook first.
+     * @param inputs - Folders to scan, in order.
+     * @param report - Report to measure each phase in.
+     * @return - Amount of documents which couldn't be read, or -1 if nothing was collected and the process should exit.
+     */
+    private static int collectInPhases(PayrollCollator collator, boolean streaming, List<File> inputs,
+                                       PerformanceReport report) {
+        System.out.println("Collecting Documents from " + describe(inputs) + ".");
+        PerformanceReport.Phase phase = report.start("discovery");
+        for (File input : inputs) {
+            collator.collectDocuments(input);
+        }
 
         int[] data = collator.amountOfDocumentsFound();
+        phase.count("files", data[0]).count("relevant_files", data[1]).end();
         System.out.println("\nFound " + data[0] + " files, of which " + data[1] + " are relevant.");
 
         if (data[1] <= 0) {
             System.out.println("\n" + SPACER);
             System.out.println("As there is no relevant files, the process will exit.");
             System.out.println(SPACER);
-            return;
+            return -1;
         }
 
         System.out.println(NL_SPACER);
 
-        data = collator.convertDocuments();
-        System.out.println("Out of " + data[0] + " documents, " + data[1] + " documents have been converted.");
+        if (streaming) {
+            System.out.println("Streaming Data from the relevant documents.");
+            phase = report.start("collection");
+            data = collator.streamDocuments();
+            countCollected(phase, collator, data[1]);
+            System.out.println("Out of " + data[0] + " documents, " + data[1] + " documents have been streamed.");
+        } else {
+            phase = report.start("conversion");
+            data = collator.convertDocuments();
+            long[] converted = collator.getConvertedStatistics();
+            phase.count("files", data[1]).count("sheets", converted[0]).count("cells", converted[1]).end();
+            System.out.println("Out of " + data[0] + " documents, " + data[1] + " documents have been converted.");
+        }
         if (data[2] > 0) {
-            System.out.println(data[2] + " errors were encountered during conversion.");
+            System.out.println(data[2] + " errors were encountered during " + (streaming ? "streaming." : "conversion."));
         }
 
         if (data[1] <= 0) {
             System.out.println("\n" + SPACER);
-            System.out.println("As there is no converted files, the process will exit.");
+            System.out.println("As there is no " + (streaming ? "streamed" : "converted") + " files, the process will exit.");
             System.out.println(SPACER);
-            return;
+            return -1;
         }
 
-        System.out.println(NL_SPACER);
-
-        System.out.println("Collecting Data from the WorkSheets.");
-
-        collator.collectData();
-
-        System.out.println(NL_SPACER);
-
-        System.out.println("Removing invalid entries from Man Directories. (Columns which don't matter)");
-        System.out.println("If a column is removed which is desired, please contact Callum.");
-
-        collator.removeInvalidData();
-
-        System.out.println(NL_SPACER);
-
-        System.out.println("Setting Paygrades using Siemens' Paycodes.");
-        collator.setupPaygrades();
+        if (!streaming) {
+            System.out.println(NL_SPACER);
 
-        System.out.println(NL_SPACER);
+            System.out.println("Collecting Data from the WorkSheets.");
 
-        System.out.println("Outputting Data to the Output File!");
-        try {
-            collator.outputData();
-        } catch (WorkbookNotValidException | IllegalArgumentException e) {
-            e.printStackTrace();
+            phase = report.start("collection");
+            collator.collectData();
+            collator.closeDocuments();
+            countCollected(phase, collator, data[1]);
         }
 
-        System.out.println("Saved data to the Output Workbook!");
-
-        System.out.println(NL_SPACER);
-
-        System.out.println("Clearing stored data (inside program)");
-        collator.shutdown();
-        System.out.println("Cleared. Process Finished.");
+        return data[2];
+    }
 
-        System.out.println(NL_SPACER);
+    /**
+     * Method to scan the input folders whilst reading and collecting the documents already found.
+     *
+     * @param collator - Collator to collect the data into.
+     * @param window - Maximum amount of documents in flight, 0 for twice the thread count.
+     * @param inputs - Folders to scan, in order.
+     * @param report - Report to measure the pipeline in, as a single phase.
+     * @return - Amount of documents which couldn't be read, or -1 if nothing was collected and the process should exit.
+     */
+    private static int collectPipelined(PayrollCollator collator, int window, List<File> inputs,
+                                        PerformanceReport report) {
+        System.out.println("Collecting Documents and their Data from " + describe(inputs) + ".");
+        PerformanceReport.Phase phase = report.start("pipeline");
+        int[] data = new CollationPipeline(collator, window).run(inputs);
+
+        int[] found = collator.amountOfDocumentsFound();
+        phase.count("relevant_files", found[1]);
+        countCollected(phase, collator, data[1]);
+        System.out.println("\nFound " + found[0] + " files, of which " + found[1] + " are relevant.");
+        System.out.println("Out of " + data[0] + " documents, " + data[1] + " documents have been collected.");
+        if (data[2] > 0) {
+            System.out.println(data[2] + " errors were encountered during collection.");
+        }
 
-        try {
-            System.out.println("Closing this menu in 10 seconds.");
-            System.out.println(NL_SPACER);
-            Thread.sleep(10000);
-        } catch (InterruptedException ignored) {}
+        if (data[1] <= 0) {
+            System.out.println("\n" + SPACER);
+            System.out.println("As there is no collected files, the process will exit.");
+            System.out.println(SPACER);
+            return -1;
+        }
+        return data[2];
+    }
 
+    /**
+     * Helper method to describe the input folders for the log.
+     *
+     * @param inputs - Folders to scan.
+     * @return - 'the current directory' or the folders, e.g. 'week1, week2'.
+     */
+    private static String describe(List<File> inputs) {
+        if (inputs.size() == 1 && inputs.get(0).getPath().equals(".")) {
+            return "the current directory";
+        }
+        StringBuilder description = new StringBuilder();
+        for (File input : inputs) {
+            description.append(description.length() == 0 ? "" : ", ").append("'").append(input.getPath()).append("'");
+        }
+        return description.toString();
+    }
 
+    /**
+     * Method to count the documents collected, and everything read from them, against a phase and end it.
+     *
+     * @param phase - Phase which collected the documents.
+     * @param collator - Collator the documents were collected into.
+     * @param documents - Amount of documents collected.
+     */
+    private static void countCollected(PerformanceReport.Phase phase, PayrollCollator collator, int documents) {
+        long[] collected = collator.getCollectedStatistics();
+        phase.count("files", documents).count("sheets", collected[0]).count("rows", collected[1])
+                .count("cells", collected[2]).count("workers", collator.getWorkers().size()).end();
     }
 
 }
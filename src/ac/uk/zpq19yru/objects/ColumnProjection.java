@@ -0,0 +1,68 @@
+package ac.uk.zpq19yru.objects;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.objects
+    Class Purpose:  Columns of a Timesheet which are wanted, cells outside of it are skipped whilst reading.
+
+*/
+
+import java.util.BitSet;
+
+public class ColumnProjection {
+
+    public static final ColumnProjection ALL = new ColumnProjection(new BitSet());
+
+    private final BitSet excluded;
+
+    /**
+     * Constructor to initialise a ColumnProjection.
+     *
+     * @param excluded - Columns which aren't wanted, every other column is.
+     */
+    private ColumnProjection(BitSet excluded) {
+        this.excluded = excluded;
+    }
+
+    /**
+     * Method to build the projection used by the Collator, the names (0 & 1), the grade (11) and every value column
+     * which isn't invalid. The other detail columns aren't used, so aren't wanted either.
+     *
+     * @param invalidColumns - Value columns which don't matter, e.g. 'Main.invalid'.
+     * @return - ColumnProjection.
+     */
+    public static ColumnProjection forValueColumns(int[] invalidColumns) {
+        BitSet excluded = new BitSet();
+        excluded.set(2, 11);
+        for (int column : invalidColumns) {
+            excluded.set(column);
+        }
+        excluded.clear(0);
+        excluded.clear(1);
+        excluded.clear(11);
+        return new ColumnProjection(excluded);
+    }
+
+    /**
+     * Method to determine if a column is wanted.
+     *
+     * @param column - Column index.
+     * @return - true = wanted, false = skipped.
+     */
+    public boolean contains(int column) {
+        return !excluded.get(column);
+    }
+
+    /**
+     * Method to describe the projection, used to discard cached totals read with a different projection.
+     *
+     * @return - Signature of the projection.
+     */
+    public String getSignature() {
+        return "exclude=" + excluded;
+    }
+
+}
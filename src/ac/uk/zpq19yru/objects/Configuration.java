@@ -51,6 +51,30 @@ public class Configuration {
         return Double.parseDouble(properties.getProperty(property));
     }
 
+    /**
+     * Method to get a property from a path, falling back to a default if it isn't set.
+     *
+     * @param property - Property Name.
+     * @param fallback - Value to return if the property doesn't exist.
+     * @return - Property Value.
+     */
+    public int getPropertyAsInt(String property, int fallback) {
+        String value = properties.getProperty(property);
+        return value == null ? fallback : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Method to get a property from a path, falling back to a default if it isn't set.
+     *
+     * @param property - Property Name.
+     * @param fallback - Value to return if the property doesn't exist.
+     * @return - Property Value.
+     */
+    public boolean getPropertyAsBoolean(String property, boolean fallback) {
+        String value = properties.getProperty(property);
+        return value == null ? fallback : Boolean.parseBoolean(value.trim());
+    }
+
     /**
      * Method to set a property Value, ensure to call 'saveProperties()' after this method.
      *
@@ -69,7 +93,7 @@ public class Configuration {
     public void loadProperties() throws IOException {
         properties = new Properties();
         loadFileFromJar();
-        FileInputStream stream = new FileInputStream(new File("./" + fileName));
+        FileInputStream stream = new FileInputStream(new File(fileName));
         properties.load(stream);
         // properties.list(System.out);
         stream.close();
@@ -82,8 +106,8 @@ public class Configuration {
      */
     private void loadFileFromJar() throws IOException {
         try {
-            InputStream inputStream = getClass().getResourceAsStream("/" + fileName);
-            Files.copy(inputStream, Paths.get("./" + fileName));
+            InputStream inputStream = getClass().getResourceAsStream("/" + new File(fileName).getName());
+            Files.copy(inputStream, Paths.get(fileName));
         } catch (FileAlreadyExistsException ignored) {} // Ignore this exception as its okay to occur.
     }
 
@@ -95,7 +119,7 @@ public class Configuration {
      *                       the Configuration instance.
      */
     public void saveProperties() throws IOException {
-        OutputStream outputStream = new FileOutputStream("./" + fileName);
+        OutputStream outputStream = new FileOutputStream(fileName);
         properties.store(outputStream, "Properties of the Program.");
         outputStream.close();
         properties = null;
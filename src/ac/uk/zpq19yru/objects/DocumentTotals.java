@@ -0,0 +1,277 @@
+package ac.uk.zpq19yru.objects;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.objects
+    Class Purpose:  Per-Man totals collected from a single document, merged into the Man Directories afterwards.
+
+*/
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+
+public class DocumentTotals {
+
+    public static final int FIRST_VALUE_COLUMN = 12; // Columns before this hold names and details, not values.
+
+    private final String documentName;
+    private final LinkedHashMap<String, WorkerTotals> workers = new LinkedHashMap<>();
+    private String[] headers;
+    private int sheets, rows, cells;
+
+    /**
+     * Constructor to initialise an empty set of DocumentTotals.
+     * A DocumentTotals is only ever filled by one thread, so it doesn't require any locking.
+     *
+     * @param documentName - Name of the document the totals are collected from.
+     */
+    public DocumentTotals(String documentName) {
+        this.documentName = documentName;
+    }
+
+    public String getDocumentName() {
+        return documentName;
+    }
+
+    /**
+     * Method to save the header row of the document, only the first header row given is kept.
+     * Saving stops at the first missing header.
+     *
+     * @param headerValues - Header text indexed by column, null where the cell doesn't exist.
+     * @param columns - Amount of columns in the header row.
+     */
+    public void setHeaders(String[] headerValues, int columns) {
+        if (headers != null) {
+            return;
+        }
+        int found = 0;
+        while (found < columns && headerValues[found] != null) {
+            found++;
+        }
+        headers = Arrays.copyOf(headerValues, found);
+    }
+
+    /**
+     * Method to return the header row of the document.
+     *
+     * @return - Header text indexed by column, or null if the document had no header row.
+     */
+    public String[] getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Method to add a single timesheet row to the totals of the Man it belongs to.
+     *
+     * @param lastName - Last name (column 0).
+     * @param firstName - First name (column 1).
+     * @param grade - Siemens grade code (column 11), the first one found for a Man is kept. Can be null.
+     * @param values - Numeric values indexed by column, NaN where the cell doesn't exist.
+     * @param columns - Amount of columns in the row, values from FIRST_VALUE_COLUMN up to this are added.
+     */
+    public void addRow(String lastName, String firstName, String grade, double[] values, int columns) {
+        rows++;
+        cells += columns;
+        lastName = lastName.replaceAll("\n", "");
+        firstName = firstName.replaceAll("\n", "");
+
+        if (firstName.isEmpty() || lastName.isEmpty()) return;
+
+        WorkerTotals totals = getOrCreateWorker(lastName, firstName);
+        if (totals.grade == null) {
+            totals.grade = grade;
+        }
+        for (int i = FIRST_VALUE_COLUMN; i < columns; i++) {
+            if (!Double.isNaN(values[i])) {
+                totals.add(i, values[i]);
+            }
+        }
+    }
+
+    /**
+     * Method to count a sheet read from the document.
+     */
+    public void countSheet() {
+        sheets++;
+    }
+
+    /**
+     * Method to return how much of the document was read into these totals.
+     * Totals loaded from the cache weren't read, so return zero for each.
+     *
+     * @return - { Sheets, Rows, Cells }
+     */
+    public int[] getReadStatistics() {
+        return new int[] { sheets, rows, cells };
+    }
+
+    /**
+     * Method to resolve the totals of a Man, creating empty totals if the Man hasn't been found yet.
+     *
+     * @param lastName - Last name of the Man.
+     * @param firstName - First name of the Man.
+     * @return - Totals of the Man.
+     */
+    public WorkerTotals getOrCreateWorker(String lastName, String firstName) {
+        String key = WorkerRegistry.getKey(lastName, firstName);
+        WorkerTotals totals = workers.get(key);
+        if (totals == null) {
+            totals = new WorkerTotals(lastName, firstName);
+            workers.put(key, totals);
+        }
+        return totals;
+    }
+
+    /**
+     * Method to find the totals of a Man.
+     *
+     * @param key - Key of the Man, see 'WorkerRegistry.getKey'.
+     * @return - Totals of the Man, or null if the Man wasn't found in the document.
+     */
+    public WorkerTotals getWorker(String key) {
+        return workers.get(key);
+    }
+
+    /**
+     * Method to return the totals of every Man found, in the order they were found.
+     *
+     * @return - Read-only view of the totals.
+     */
+    public Collection<WorkerTotals> getWorkers() {
+        return Collections.unmodifiableCollection(workers.values());
+    }
+
+    /**
+     * Totals of a single Man within a document, one total and count per column rather than every value read.
+     * Totals are summed with Neumaier compensation here and again when merged onto the Man, which keeps the
+     * rounding error far below that of adding each value in turn. Each document is totalled by a single thread
+     * and merged in order, so the same documents give the same totals whatever the thread count.
+     */
+    public static class WorkerTotals {
+
+        private final String lastName;
+        private final String firstName;
+        private String grade;
+        private double[] sums = new double[0];
+        private double[] compensations = new double[0]; // Low order bits lost from each sum so far.
+        private int[] entries = new int[0];
+
+        /**
+         * Constructor to initialise an empty set of WorkerTotals.
+         *
+         * @param lastName - Last name of the Man.
+         * @param firstName - First name of the Man.
+         */
+        public WorkerTotals(String lastName, String firstName) {
+            this.lastName = lastName;
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getGrade() {
+            return grade;
+        }
+
+        public void setGrade(String grade) {
+            this.grade = grade;
+        }
+
+        /**
+         * Method to return the amount of columns which may hold data, columns beyond this are empty.
+         *
+         * @return - Column count.
+         */
+        public int getColumns() {
+            return entries.length;
+        }
+
+        /**
+         * Method to return the amount of values added to a column.
+         *
+         * @param column - Column index.
+         * @return - Amount of values, 0 if nothing was added.
+         */
+        public int getEntries(int column) {
+            return column < entries.length ? entries[column] : 0;
+        }
+
+        /**
+         * Method to return the total of a column, as summed without compensation.
+         *
+         * @param column - Column index.
+         * @return - Total, 0 if nothing was added.
+         */
+        public double getSum(int column) {
+            return column < entries.length ? sums[column] : 0;
+        }
+
+        /**
+         * Method to return the low order bits lost whilst summing a column, which belong on top of its total.
+         *
+         * @param column - Column index.
+         * @return - Compensation, 0 if nothing was lost or added.
+         */
+        public double getCompensation(int column) {
+            return column < entries.length ? compensations[column] : 0;
+        }
+
+        /**
+         * Method to add a value to a column.
+         *
+         * @param column - Column index.
+         * @param value - Value to be added.
+         */
+        public void add(int column, double value) {
+            ensureColumns(column + 1);
+            double sum = sums[column], total = sum + value;
+            if (!Double.isInfinite(total)) {
+                compensations[column] += Math.abs(sum) >= Math.abs(value) ? (sum - total) + value
+                        : (value - total) + sum;
+            }
+            sums[column] = total;
+            entries[column]++;
+        }
+
+        /**
+         * Method to set the total of a column, e.g. when the totals are loaded from the cache.
+         *
+         * @param column - Column index.
+         * @param total - Total of the column, see 'getSum'.
+         * @param compensation - Low order bits lost from the total, see 'getCompensation'.
+         * @param count - Amount of values totalled.
+         */
+        public void setSum(int column, double total, double compensation, int count) {
+            ensureColumns(column + 1);
+            sums[column] = total;
+            compensations[column] = compensation;
+            entries[column] = count;
+        }
+
+        /**
+         * Helper method to make room for a column.
+         *
+         * @param columns - Amount of columns required.
+         */
+        private void ensureColumns(int columns) {
+            if (columns > entries.length) {
+                sums = Arrays.copyOf(sums, columns);
+                compensations = Arrays.copyOf(compensations, columns);
+                entries = Arrays.copyOf(entries, columns);
+            }
+        }
+
+    }
+
+}
@@ -7,59 +7,104 @@ package ac.uk.zpq19yru.objects;
     Project Name:   Payroll Collator
     Package Name:   ac.uk.zpq19yru.objects
     Class Purpose:  Excel Document Bridge, enables specific Data Pulling Methodology.
+                    Sheet filtering happens after the Workbook has parsed every sheet, skipped or not.
     
 */
 
 import ac.uk.zpq19yru.Main;
 import ac.uk.zpq19yru.exceptions.SheetNotValidException;
 import ac.uk.zpq19yru.exceptions.WorkbookNotValidException;
+import org.apache.poi.ooxml.POIXMLDocument;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
 
-public class ExcelDocument implements Comparable<ExcelDocument> {
+public class ExcelDocument implements Comparable<ExcelDocument>, Closeable {
 
     private final Workbook workbook;
-    private final LinkedList<ExcelSheet> sheets = new LinkedList<>();
+    private final ArrayList<Integer> sheetIndexes = new ArrayList<>(); // Workbook index of each sheet read.
+    private final ArrayList<ExcelSheet> sheets = new ArrayList<>();    // Null until the sheet is first used.
     private final String workBookName;
 
     /**
-     * Constructor to initialise an ExcelDocument.
+     * Constructor to initialise an ExcelDocument, which reads every sheet of the Workbook.
      *
      * @param workbook - Workbook to be Bridged to an ExcelDocument.
      * @throws WorkbookNotValidException - Thrown when:
      *                                   Document is Null.
-     *                                   Any sheet is Null.
      *                                   Document has no Pages.
-     *                                   Documents Pages isn't equal to Found pages.
      */
     public ExcelDocument(Workbook workbook, String name) throws WorkbookNotValidException {
+        this(workbook, name, SheetFilter.ALL);
+    }
+
+    /**
+     * Constructor to initialise an ExcelDocument.
+     * Sheets are only bridged to an ExcelSheet when first used, and sheets rejected by the filter never are,
+     * so their cells aren't copied.
+     * The filter cannot save parsing: a Workbook has already parsed every sheet, skipped ones included, by the
+     * time it is given here, so only the streaming reader avoids the cost of a skipped sheet.
+     *
+     * @param workbook - Workbook to be Bridged to an ExcelDocument.
+     * @param name - Name of the Workbook's file.
+     * @param filter - Rules deciding which sheets are read.
+     * @throws WorkbookNotValidException - Thrown when:
+     *                                   Document is Null.
+     *                                   Document has no Pages.
+     */
+    public ExcelDocument(Workbook workbook, String name, SheetFilter filter) throws WorkbookNotValidException {
+        this(workbook, name, filter, name.equals(Main.OUTPUT_FILE_NAME));
+    }
+
+    /**
+     * Method to bridge the Output Workbook, which may be empty whatever its name.
+     *
+     * @param workbook - Workbook to be Bridged to an ExcelDocument.
+     * @param name - Name of the Output File.
+     * @return - ExcelDocument bridge.
+     * @throws WorkbookNotValidException - Thrown when the Document is Null.
+     */
+    public static ExcelDocument forOutput(Workbook workbook, String name) throws WorkbookNotValidException {
+        return new ExcelDocument(workbook, name, SheetFilter.ALL, true);
+    }
+
+    /**
+     * Constructor to initialise an ExcelDocument.
+     *
+     * @param workbook - Workbook to be Bridged to an ExcelDocument.
+     * @param name - Name of the Workbook's file.
+     * @param filter - Rules deciding which sheets are read.
+     * @param output - true = the Workbook is an Output Workbook, so may have no pages.
+     * @throws WorkbookNotValidException - Thrown when:
+     *                                   Document is Null.
+     *                                   Document has no Pages.
+     */
+    private ExcelDocument(Workbook workbook, String name, SheetFilter filter, boolean output)
+            throws WorkbookNotValidException {
         if (workbook == null) {
             throw new WorkbookNotValidException("Workbook is Null.");
         }
-        if (workbook.getNumberOfSheets() == 0 && !name.equals(Main.OUTPUT_FILE_NAME)) {
+        if (workbook.getNumberOfSheets() == 0 && !output) {
             throw new WorkbookNotValidException("Workbook has no sheets!");
         }
         this.workBookName = name;
         this.workbook = workbook;
-        Iterator<Sheet> sheets = workbook.sheetIterator();
-        while (sheets.hasNext()) {
-            Sheet sheet = sheets.next();
-            if (sheet == null) {
-                throw new SheetNotValidException("Sheet is Null.");
+        for (int index = 0; index < workbook.getNumberOfSheets(); index++) {
+            if (accepts(filter, index)) {
+                sheetIndexes.add(index);
+                sheets.add(null);
+            } else {
+                System.out.println("Skipped the sheet '" + workbook.getSheetName(index)
+                        + "' from the workbook '" + name + "'!");
             }
-            ExcelSheet excelSheet = new ExcelSheet(sheet, false);
-            System.out.println(
-                    "Loaded '" + excelSheet.getLoadedCells()
-                            + "' cells from the sheet '" + excelSheet.getName()
-                            + "' from the workbook '" + name + "'!"
-            );
-            this.sheets.add(excelSheet);
-        }
-        if (workbook.getNumberOfSheets() != this.sheets.size()) {
-            throw new WorkbookNotValidException("Workbook sheets could not be pulled from the Workbook!");
         }
     }
 
@@ -77,17 +122,28 @@ public class ExcelDocument implements Comparable<ExcelDocument> {
     }
 
     /**
-     * Method to return an ExcelSheet at an Index.
+     * Method to return an ExcelSheet at an Index, bridging the sheet if it hasn't been used yet.
      *
-     * @param index - Index of desired page.
+     * @param index - Index of desired page, amongst the pages read.
      * @return - ExcelSheet bridge (Sheet -> ExcelSheet).
-     * @throws IllegalArgumentException - If the Index is less than 0 or greater than the workbook's page count.
+     * @throws IllegalArgumentException - If the Index is less than 0 or not less than the workbook's page count.
+     * @throws SheetNotValidException - If the sheet is Null or Empty.
      */
-    public ExcelSheet getSheet(int index) throws IllegalArgumentException {
-        if (index < 0 || index > workbook.getNumberOfSheets()) {
+    public ExcelSheet getSheet(int index) throws IllegalArgumentException, SheetNotValidException {
+        if (index < 0 || index >= sheets.size()) {
             throw new IllegalArgumentException("Index provided is Greater than or Less than plausible Options.");
         }
-        return sheets.get(index);
+        ExcelSheet excelSheet = sheets.get(index);
+        if (excelSheet == null) {
+            excelSheet = new ExcelSheet(workbook.getSheetAt(sheetIndexes.get(index)), false);
+            System.out.println(
+                    "Loaded '" + excelSheet.getLoadedCells()
+                            + "' cells from the sheet '" + excelSheet.getName()
+                            + "' from the workbook '" + workBookName + "'!"
+            );
+            sheets.set(index, excelSheet);
+        }
+        return excelSheet;
     }
 
     /**
@@ -96,17 +152,33 @@ public class ExcelDocument implements Comparable<ExcelDocument> {
      * @param name - Name of the desired page.
      * @return - ExcelSheet bridge (Sheet -> ExcelSheet).
      * @throws NullPointerException - If Name is Null or the page isn't found.
+     * @throws SheetNotValidException - If the sheet is Null or Empty.
      */
-    public ExcelSheet getSheet(String name) throws NullPointerException {
+    public ExcelSheet getSheet(String name) throws NullPointerException, SheetNotValidException {
         if (name == null) {
             throw new NullPointerException("Workbook cannot have a Null name!");
         }
-        ExcelSheet foundSheet = sheets.stream().filter(excelSheet -> excelSheet.getName().equalsIgnoreCase(name))
-                .findFirst().orElse(null);
-        if (foundSheet == null) {
-            throw new NullPointerException("Workbook doesn't have sheet by the name '" + name + "'!");
+        for (int index = 0; index < sheetIndexes.size(); index++) {
+            if (workbook.getSheetName(sheetIndexes.get(index)).equalsIgnoreCase(name)) {
+                return getSheet(index);
+            }
+        }
+        throw new NullPointerException("Workbook doesn't have sheet by the name '" + name + "'!");
+    }
+
+    /**
+     * Method to return how many cells have been copied from the sheets used so far.
+     *
+     * @return - amount of cells.
+     */
+    public long getLoadedCells() {
+        long cells = 0;
+        for (ExcelSheet sheet : sheets) {
+            if (sheet != null) {
+                cells += sheet.getLoadedCells();
+            }
         }
-        return foundSheet;
+        return cells;
     }
 
     /**
@@ -122,13 +194,14 @@ public class ExcelDocument implements Comparable<ExcelDocument> {
         }
         Sheet newSheet = workbook.createSheet(name);
         ExcelSheet sheet = new ExcelSheet(newSheet, true);
+        sheetIndexes.add(workbook.getSheetIndex(newSheet));
         sheets.add(sheet);
         System.out.println("Created Sheet '" + name + "'!");
         return sheet;
     }
 
     /**
-     * Method to return the amount of Sheets loaded from the Workbook.
+     * Method to return the amount of Sheets read from the Workbook, including those not used yet.
      *
      * @return - amount of sheets.
      */
@@ -136,6 +209,52 @@ public class ExcelDocument implements Comparable<ExcelDocument> {
         return sheets.size();
     }
 
+    /**
+     * Helper method to determine if a sheet of the Workbook should be read, only its first row is looked at.
+     *
+     * @param filter - Rules deciding which sheets are read.
+     * @param index - Workbook index of the sheet.
+     * @return - true = read, false = skip.
+     */
+    private boolean accepts(SheetFilter filter, int index) {
+        if (!filter.acceptsName(workbook.getSheetName(index))) {
+            return false;
+        }
+        if (!filter.requiresHeaders()) {
+            return true;
+        }
+        Row row = workbook.getSheetAt(index).getRow(0);
+        if (row == null) {
+            return false;
+        }
+        int columns = Math.max(row.getLastCellNum(), 0);
+        String[] headers = new String[columns];
+        for (Cell cell : row) {
+            if (cell.getCellType() == CellType.STRING) {
+                headers[cell.getColumnIndex()] = cell.getStringCellValue();
+            }
+        }
+        return filter.acceptsHeaders(headers, columns);
+    }
+
+    /**
+     * Method to release the Workbook and the file behind it.
+     * Workbooks opened from a read-only package are reverted, as closing them would attempt to save the package.
+     *
+     * @throws IOException - If the Workbook cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (workbook instanceof POIXMLDocument) {
+            OPCPackage pkg = ((POIXMLDocument) workbook).getPackage();
+            if (pkg != null && pkg.getPackageAccess() == PackageAccess.READ) {
+                pkg.revert();
+                return;
+            }
+        }
+        workbook.close();
+    }
+
     /**
      * Method to return the 'Workbook' hashcode.
      *
@@ -18,16 +18,16 @@ import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 
-import java.util.LinkedList;
-import java.util.Optional;
+import java.util.Arrays;
 
 public class ExcelSheet {
 
     private final Sheet sheet;
-    private LinkedList<Cell> sheetData = new LinkedList<>();
+    private Cell[][] sheetData; // Indexed as [row][column], null where no Cell exists.
     private final int maxRows;
     private final int loadedCells;
-    private final LinkedList<Integer> columnData = new LinkedList<>();
+    private int[] columnData;
+    private RowCursor cursor;
 
     /**
      * Constructor to initialise an ExcelSheet.
@@ -45,20 +45,24 @@ public class ExcelSheet {
             throw new SheetNotValidException("Sheet is empty.");
         }
         this.sheet = sheet;
-        for (int row = 0; row < sheet.getPhysicalNumberOfRows(); row++) {
+        this.maxRows = sheet.getPhysicalNumberOfRows();
+        this.sheetData = new Cell[Math.max(maxRows, 1)][];
+        this.columnData = new int[sheetData.length];
+        int cellCount = 0;
+        for (int row = 0; row < maxRows; row++) {
             Row rowObject = sheet.getRow(row);
             if (rowObject == null) {
                 rowObject = sheet.createRow(row);
             }
-            for (int col = 0; col < rowObject.getPhysicalNumberOfCells(); col++) {
-                sheetData.add(rowObject.getCell(col));
-                if (columnData.size() == row) {
-                    columnData.add(rowObject.getPhysicalNumberOfCells());
-                }
+            Cell[] rowData = new Cell[Math.max(rowObject.getLastCellNum(), 0)];
+            for (Cell cell : rowObject) {
+                rowData[cell.getColumnIndex()] = cell;
+                cellCount++;
             }
+            sheetData[row] = rowData;
+            columnData[row] = rowObject.getPhysicalNumberOfCells();
         }
-        this.maxRows = sheet.getPhysicalNumberOfRows();
-        loadedCells = sheetData.size();
+        loadedCells = cellCount;
     }
 
     /**
@@ -86,7 +90,10 @@ public class ExcelSheet {
      * @return - Max Columns.
      */
     public int getMaxColumns(int row) {
-        return columnData.get(row);
+        if (row < 0 || row >= columnData.length) {
+            return 0;
+        }
+        return columnData[row];
     }
 
     /**
@@ -107,14 +114,13 @@ public class ExcelSheet {
      * @throws CellNotFoundException - Thrown if the Cell isn't found.
      */
     public Cell getCell(int row, int column) throws CellNotFoundException {
-        Optional<Cell> cellOptional = sheetData.stream().filter(
-                cell -> cell.getRowIndex() == row && cell.getColumnIndex() == column
-        ).findFirst();
-        if (cellOptional.isPresent()) {
-            return cellOptional.get();
-        } else {
-            throw new CellNotFoundException("The cell at X'" + column + "' and Y'" + row + "' could not be found!");
+        if (row >= 0 && row < sheetData.length && column >= 0) {
+            Cell[] rowData = sheetData[row];
+            if (rowData != null && column < rowData.length && rowData[column] != null) {
+                return rowData[column];
+            }
         }
+        throw new CellNotFoundException("The cell at X'" + column + "' and Y'" + row + "' could not be found!");
     }
 
     /**
@@ -143,7 +149,7 @@ public class ExcelSheet {
                 temp = sheet.createRow(row);
             }
             cell = temp.getCell(column, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-            sheetData.add(cell);
+            storeCell(row, column, cell);
         }
         switch (type) {
             case NUMERIC:
@@ -163,4 +169,55 @@ public class ExcelSheet {
         }
     }
 
+    /**
+     * Method to open a row for sequential writing, closing any row the cursor already had open.
+     * Cells written through the cursor skip the lookups of 'setCell' and aren't indexed,
+     * so they cannot be read back through 'getCell'.
+     *
+     * @param row - Index of the row, after every row already on the sheet.
+     * @return - Cursor at the first column of the row.
+     * @throws IllegalArgumentException - If the row isn't after the last row written.
+     */
+    public RowCursor openRow(int row) throws IllegalArgumentException {
+        return getCursor().open(row);
+    }
+
+    /**
+     * Method to return the cursor used by 'openRow', created on first use.
+     *
+     * @return - Cursor of the sheet, the same cursor is returned on each call.
+     */
+    public RowCursor getCursor() {
+        if (cursor == null) {
+            cursor = new RowCursor(sheet);
+        }
+        return cursor;
+    }
+
+    /**
+     * Helper method to place a Cell into the row/column index, growing the index where required.
+     *
+     * @param row - Row of the Cell.
+     * @param column - Column of the Cell.
+     * @param cell - Cell to be stored.
+     */
+    private void storeCell(int row, int column, Cell cell) {
+        if (row >= sheetData.length) {
+            int size = Math.max(row + 1, sheetData.length * 2);
+            sheetData = Arrays.copyOf(sheetData, size);
+            columnData = Arrays.copyOf(columnData, size);
+        }
+        Cell[] rowData = sheetData[row];
+        if (rowData == null) {
+            rowData = new Cell[column + 1];
+        } else if (column >= rowData.length) {
+            rowData = Arrays.copyOf(rowData, Math.max(column + 1, rowData.length * 2));
+        }
+        if (rowData[column] == null) {
+            columnData[row]++;
+        }
+        rowData[column] = cell;
+        sheetData[row] = rowData;
+    }
+
 }
@@ -12,27 +12,40 @@ package ac.uk.zpq19yru.objects;
 
 import ac.uk.zpq19yru.Main;
 
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class Man {
 
     private final String last;
     private final String first;
-    private final HashMap<Integer, Double> data = new HashMap<>();
+    private final WorkerStore store;
+    private final int id;
     private String grade;
     private Grade paygrade;
-    private int radiusEntries;
 
     /**
-     * Constructor to initialise a Man Object.
+     * Constructor to initialise a Man Object, with a store of their own on the heap.
      *
      * @param lastName - Last name of the Man.
      * @param firstName - First name of Man.
      */
     public Man(String lastName, String firstName) {
+        this(lastName, firstName, new WorkerStore(1, false));
+    }
+
+    /**
+     * Constructor to initialise a Man Object, whose data is kept in a row of a shared store.
+     *
+     * @param lastName - Last name of the Man.
+     * @param firstName - First name of Man.
+     * @param store - Store to add the Man to.
+     */
+    public Man(String lastName, String firstName, WorkerStore store) {
         this.last = lastName.toUpperCase();
         this.first = firstName.toUpperCase();
+        this.store = store;
+        this.id = store.addWorker();
     }
 
     public String getFirst() {
@@ -67,11 +80,18 @@ public class Man {
      * @param value - Value to be added.
      */
     public void addData(int colIndex, double value) {
-        double current = data.getOrDefault(colIndex, 0.0);
-        data.put(colIndex, current+value);
-        if (colIndex == 27) {
-            radiusEntries++;
-        }
+        store.add(id, colIndex, value);
+    }
+
+    /**
+     * Add the total of several values to a Man's definition, e.g. the Man's total within a document.
+     *
+     * @param colIndex - Column which the data was found.
+     * @param total - Total of the values.
+     * @param entries - Amount of values totalled.
+     */
+    public void addData(int colIndex, double total, int entries) {
+        store.add(id, colIndex, total, entries);
     }
 
     /**
@@ -81,19 +101,43 @@ public class Man {
      * @return - Value or -1 if not found.
      */
     public double getData(int index) {
-        if (index == 27) {
-            return data.getOrDefault(index, -1.0)/radiusEntries;
+        double value = store.has(id, index) ? store.get(id, index) : -1.0;
+        if (index == WorkerStore.RADIUS_COLUMN) {
+            return value/store.getRadiusEntries(id);
         }
-        return data.getOrDefault(index, -1.0);
+        return value;
+    }
+
+    /**
+     * Method to determine if data has been added to a column.
+     *
+     * @param index - Column index.
+     * @return - true = data added, false = no data.
+     */
+    public boolean hasData(int index) {
+        return store.has(id, index);
     }
 
     /**
-     * Return all keys in the Data map.
+     * Return every column which has data.
      *
-     * @return - Set of Integers.
+     * @return - Column indexes, ascending.
+     */
+    public int[] getColumns() {
+        return store.getColumns(id);
+    }
+
+    /**
+     * Return all keys in the Data map, prefer 'getColumns()' as this boxes each column.
+     *
+     * @return - Set of Integers, ascending.
      */
     public Set<Integer> getKeys() {
-        return data.keySet();
+        Set<Integer> keys = new LinkedHashSet<>();
+        for (int column : getColumns()) {
+            keys.add(column);
+        }
+        return keys;
     }
 
     /**
@@ -101,10 +145,18 @@ public class Man {
      */
     public void removeInvalidEntries() {
         for (int i : Main.invalid) {
-            data.remove(i);
+            store.remove(id, i);
         }
     }
 
+    /**
+     * Method to remove all data and pricing, so the Man can be collected again. The grade is kept.
+     */
+    public void clearData() {
+        store.reset(id);
+        paygrade = null;
+    }
+
     /**
      * Set the Workers' Paygrade (based off of grade)
      *
@@ -114,6 +166,71 @@ public class Man {
         this.paygrade = grade;
     }
 
+    /**
+     * Method to return how many values have been added to the Radius column, its total is averaged over these.
+     *
+     * @return - Amount of Radius values.
+     */
+    public int getRadiusEntries() {
+        return store.getRadiusEntries(id);
+    }
+
+    /**
+     * Method to forget the Rate and Pay of every column and mark the Man as priced, before a 'RateTable' saves
+     * the Rate and Pay of each paid column.
+     */
+    public void startPricing() {
+        store.startPricing(id);
+    }
+
+    /**
+     * Method to save the Rate and Pay of a column, as priced by a 'RateTable'.
+     *
+     * @param index - Column index.
+     * @param rate - Rate of the column.
+     * @param pay - Pay of the column.
+     */
+    public void setPricing(int index, double rate, double pay) {
+        store.setPricing(id, index, rate, pay);
+    }
+
+    /**
+     * Method to determine if the Man has been priced by a 'RateTable'.
+     *
+     * @return - true = priced, false = not priced (their code isn't linked to a Grade).
+     */
+    public boolean isPriced() {
+        return store.isPriced(id);
+    }
+
+    /**
+     * Method to return the Rate of a column, saved when the Man was priced.
+     *
+     * @param index - Column index.
+     * @return - Rate, 0 for columns which aren't paid.
+     * @throws IllegalStateException - If the Man hasn't been priced.
+     */
+    public double getRate(int index) throws IllegalStateException {
+        if (!store.isPriced(id)) {
+            throw new IllegalStateException("'" + getName() + "' hasn't been priced.");
+        }
+        return store.getRate(id, index);
+    }
+
+    /**
+     * Method to return the Pay of a column, saved when the Man was priced.
+     *
+     * @param index - Column index.
+     * @return - Pay, 0 for columns which aren't paid.
+     * @throws IllegalStateException - If the Man hasn't been priced.
+     */
+    public double getPay(int index) throws IllegalStateException {
+        if (!store.isPriced(id)) {
+            throw new IllegalStateException("'" + getName() + "' hasn't been priced.");
+        }
+        return store.getPay(id, index);
+    }
+
     /**
      * Get the Paygrade or Paygraded Value for the Column Index.
      *
@@ -131,7 +248,7 @@ public class Man {
             case 15: // Travel Hours
                 return finalResult ? getRoundOff(value*paygrade.getTravel()) : paygrade.getTravel();
             case 27: // Radius Hours
-                return finalResult ? getRoundOff(value*radiusEntries) : value*radiusEntries;
+                return finalResult ? getRoundOff(value*getRadiusEntries()) : value*getRadiusEntries();
             case 17: // Nights
                 return finalResult ? paygrade.getNights()*value : paygrade.getNights();
             case 32: // OTB/OT2
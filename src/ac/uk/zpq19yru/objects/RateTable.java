@@ -0,0 +1,135 @@
+package ac.uk.zpq19yru.objects;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.objects
+    Class Purpose:  Rates of every Grade compiled into a table by column, used to price every Man in one pass.
+
+*/
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+public class RateTable {
+
+    public static final int COLUMNS = 38;
+
+    private static final byte NONE = 0;     // No pay (Bonus and unpriced columns).
+    private static final byte RATE = 1;     // Value * Rate.
+    private static final byte ON_COST = 2;  // Value * Rate, plus holiday pay and NI, rounded to pence.
+    private static final byte RADIUS = 3;   // Average radius * entries, plus holiday pay and NI, rounded to pence.
+
+    private static final double HOLIDAY_PAY = 8.33 / 100;
+    private static final double NATIONAL_INSURANCE = 13.8 / 100;
+
+    private static final byte[] KINDS = new byte[COLUMNS];
+    private static final int[] PAID = new int[] { 12, 15, 17, 27, 32, 37 }; // Every column which isn't NONE.
+
+    static {
+        KINDS[12] = RATE;       // Daily
+        KINDS[15] = ON_COST;    // Travel Hours
+        KINDS[17] = RATE;       // Nights
+        KINDS[27] = RADIUS;     // Radius Hours
+        KINDS[32] = RATE;       // OTB/OT2
+        KINDS[37] = RATE;       // OTA/OT1
+    }
+
+    private final Grade[] grades;
+    private final double[][] rates;
+    private final HashMap<String, Integer> codes = new HashMap<>();
+
+    /**
+     * Constructor to compile a RateTable, if two Grades share a code the first is used.
+     *
+     * @param grades - Grades to compile.
+     */
+    public RateTable(List<Grade> grades) {
+        this.grades = grades.toArray(new Grade[0]);
+        this.rates = new double[this.grades.length][COLUMNS];
+        for (int i = 0; i < this.grades.length; i++) {
+            Grade grade = this.grades[i];
+            codes.putIfAbsent(grade.getLinkedCode(), i);
+            rates[i][12] = grade.getDaily();
+            rates[i][15] = grade.getTravel();
+            rates[i][17] = grade.getNights();
+            rates[i][32] = grade.getOtb();
+            rates[i][37] = grade.getOta();
+        }
+    }
+
+    /**
+     * Method to return the Grades compiled into the table.
+     *
+     * @return - Read-only list of the Grades, in the order given.
+     */
+    public List<Grade> getGrades() {
+        return Collections.unmodifiableList(Arrays.asList(grades));
+    }
+
+    /**
+     * Method to find the Grade linked to a Siemens code.
+     *
+     * @param code - Siemens grade code.
+     * @return - Grade, or null if no Grade is linked to the code.
+     */
+    public Grade getGrade(String code) {
+        Integer index = codes.get(code);
+        return index == null ? null : grades[index];
+    }
+
+    /**
+     * Method to price every column of a Man, the Rate and Pay of each column is saved straight into the Man's
+     * store, so pricing allocates nothing. The results match 'Man.getPayGrade' exactly.
+     *
+     * @param man - Man to price.
+     * @return - true = priced, false = the Man's code isn't linked to a Grade.
+     */
+    public boolean price(Man man) {
+        Integer index = codes.get(man.getGrade());
+        if (index == null) {
+            return false;
+        }
+        double[] gradeRates = rates[index];
+        man.startPricing();
+        for (int key : PAID) {
+            if (!man.hasData(key)) {
+                continue;
+            }
+            double value = man.getData(key);
+            switch (KINDS[key]) {
+                case RATE:
+                    man.setPricing(key, gradeRates[key], gradeRates[key] * value);
+                    break;
+                case ON_COST:
+                    man.setPricing(key, gradeRates[key], getRoundOff(value * gradeRates[key]));
+                    break;
+                case RADIUS:
+                    double rate = value * man.getRadiusEntries();
+                    man.setPricing(key, rate, getRoundOff(rate));
+                    break;
+                default:
+                    break;
+            }
+        }
+        man.setPayGrade(grades[index]);
+        return true;
+    }
+
+    /**
+     * Helper method to add holiday pay and NI onto a value, rounded to pence.
+     *
+     * @param value - Value to adjust.
+     * @return - Adjusted value.
+     */
+    private static double getRoundOff(double value) {
+        double holiday = value + value * HOLIDAY_PAY;
+        double rate = holiday + holiday * NATIONAL_INSURANCE;
+        return Math.round(rate * 100.0) / 100.0;
+    }
+
+}
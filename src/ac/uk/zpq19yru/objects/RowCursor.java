@@ -0,0 +1,124 @@
+package ac.uk.zpq19yru.objects;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.objects
+    Class Purpose:  Append-only writer for a Sheet, writes rows top to bottom and cells left to right.
+
+*/
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+public class RowCursor {
+
+    private final Sheet sheet;
+    private Row row;
+    private int column;
+    private int lastRow;
+
+    /**
+     * Constructor to initialise a RowCursor.
+     * Cells are created straight on the Sheet without being looked up or indexed first, so each row
+     * can only be opened once, after every row already on the Sheet.
+     *
+     * @param sheet - Sheet to write to, any Sheet (including streaming Sheets) is supported.
+     */
+    public RowCursor(Sheet sheet) {
+        this.sheet = sheet;
+        this.lastRow = sheet.getPhysicalNumberOfRows() == 0 ? -1 : sheet.getLastRowNum();
+    }
+
+    /**
+     * Method to open a new row, closing the current row, the cursor starts at the first column.
+     *
+     * @param rowIndex - Index of the row, after every row written so far.
+     * @return - This RowCursor, for chaining.
+     * @throws IllegalArgumentException - If the row isn't after the last row written.
+     */
+    public RowCursor open(int rowIndex) throws IllegalArgumentException {
+        if (rowIndex <= lastRow) {
+            throw new IllegalArgumentException("Row '" + rowIndex + "' cannot be written after row '" + lastRow + "'!");
+        }
+        row = sheet.createRow(rowIndex);
+        lastRow = rowIndex;
+        column = 0;
+        return this;
+    }
+
+    /**
+     * Method to move the cursor forward, leaving the columns skipped empty.
+     *
+     * @param column - Column index, at or after the cursor.
+     * @return - This RowCursor, for chaining.
+     * @throws IllegalArgumentException - If the column is before the cursor.
+     */
+    public RowCursor moveTo(int column) throws IllegalArgumentException {
+        if (column < this.column) {
+            throw new IllegalArgumentException("Column '" + column + "' is before the cursor ('" + this.column + "')!");
+        }
+        this.column = column;
+        return this;
+    }
+
+    /**
+     * Method to write text at the cursor and move to the next column.
+     *
+     * @param value - Text to write.
+     * @return - This RowCursor, for chaining.
+     * @throws IllegalStateException - If no row is open.
+     */
+    public RowCursor write(String value) throws IllegalStateException {
+        next().setCellValue(value);
+        return this;
+    }
+
+    /**
+     * Method to write a number at the cursor and move to the next column.
+     *
+     * @param value - Number to write.
+     * @return - This RowCursor, for chaining.
+     * @throws IllegalStateException - If no row is open.
+     */
+    public RowCursor write(double value) throws IllegalStateException {
+        next().setCellValue(value);
+        return this;
+    }
+
+    /**
+     * Method to write a formula at the cursor and move to the next column.
+     *
+     * @param formula - Formula to write, without the leading '='.
+     * @return - This RowCursor, for chaining.
+     * @throws IllegalStateException - If no row is open.
+     */
+    public RowCursor writeFormula(String formula) throws IllegalStateException {
+        next().setCellFormula(formula);
+        return this;
+    }
+
+    /**
+     * Method to close the current row, nothing is kept by the cursor once closed.
+     */
+    public void close() {
+        row = null;
+    }
+
+    /**
+     * Helper method to create the Cell at the cursor and move to the next column.
+     *
+     * @return - New Cell.
+     * @throws IllegalStateException - If no row is open.
+     */
+    private Cell next() throws IllegalStateException {
+        if (row == null) {
+            throw new IllegalStateException("A row must be opened before it can be written to!");
+        }
+        return row.createCell(column++);
+    }
+
+}
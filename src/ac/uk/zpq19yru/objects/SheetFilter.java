@@ -0,0 +1,146 @@
+package ac.uk.zpq19yru.objects;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.objects
+    Class Purpose:  Rules deciding which sheets of a Timesheet are read, by name pattern or header signature.
+
+*/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public class SheetFilter {
+
+    public static final SheetFilter ALL = new SheetFilter(
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList()
+    );
+
+    private final List<Pattern> includes = new ArrayList<>();
+    private final List<Pattern> excludes = new ArrayList<>();
+    private final List<String> requiredHeaders = new ArrayList<>();
+    private final String signature;
+
+    /**
+     * Constructor to initialise a SheetFilter.
+     * Sheet names are matched ignoring case, as Excel does, '*' matches any text and '?' matches one character.
+     *
+     * @param includes - Patterns a sheet name must match to be read, empty for any sheet.
+     * @param excludes - Patterns of sheet names to skip.
+     * @param requiredHeaders - Headers which must all be found on the first row of a sheet, compared ignoring
+     *                        case and surrounding whitespace, empty to read a sheet whatever its headers.
+     */
+    public SheetFilter(List<String> includes, List<String> excludes, List<String> requiredHeaders) {
+        for (String pattern : includes) {
+            this.includes.add(compile(pattern));
+        }
+        for (String pattern : excludes) {
+            this.excludes.add(compile(pattern));
+        }
+        for (String header : requiredHeaders) {
+            this.requiredHeaders.add(normalise(header));
+        }
+        this.signature = "include=" + includes + ",exclude=" + excludes + ",headers=" + this.requiredHeaders;
+    }
+
+    /**
+     * Method to determine if a sheet should be read from its name alone.
+     *
+     * @param name - Name of the sheet.
+     * @return - true = read (subject to its headers), false = skip.
+     */
+    public boolean acceptsName(String name) {
+        return (includes.isEmpty() || matches(includes, name)) && !matches(excludes, name);
+    }
+
+    /**
+     * Method to determine if the first row of a sheet must be checked before the sheet is read.
+     *
+     * @return - true = headers are required, false = any headers are accepted.
+     */
+    public boolean requiresHeaders() {
+        return !requiredHeaders.isEmpty();
+    }
+
+    /**
+     * Method to determine if the first row of a sheet holds every required header.
+     *
+     * @param headers - Text of the first row, indexed by column, null where a cell has no text.
+     * @param columns - Amount of columns of the first row.
+     * @return - true = every required header was found, false = skip the sheet.
+     */
+    public boolean acceptsHeaders(String[] headers, int columns) {
+        for (String required : requiredHeaders) {
+            boolean found = false;
+            for (int i = 0; i < columns && !found; i++) {
+                found = headers[i] != null && normalise(headers[i]).equals(required);
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method to describe the rules, used to discard cached totals read with different rules.
+     *
+     * @return - Signature of the rules.
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    /**
+     * Helper method to determine if a name matches any of the patterns given.
+     *
+     * @param patterns - Patterns to test.
+     * @param name - Name of the sheet.
+     * @return - true = matches, false = doesn't match.
+     */
+    private static boolean matches(List<Pattern> patterns, String name) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to compile a pattern, '*' and '?' are the only special characters as neither can be
+     * used within a sheet name.
+     *
+     * @param pattern - Pattern, e.g. 'Week*'.
+     * @return - Case-insensitive regular expression.
+     */
+    private static Pattern compile(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > start) {
+                    regex.append(Pattern.quote(pattern.substring(start, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < pattern.length()) {
+            regex.append(Pattern.quote(pattern.substring(start)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+    private static String normalise(String header) {
+        return header.trim().toUpperCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,164 @@
+package ac.uk.zpq19yru.objects;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.objects
+    Class Purpose:  Registry of every Man collected, indexed by name and any alternate keys.
+
+*/
+
+import ac.uk.zpq19yru.exceptions.ManNotFoundException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class WorkerRegistry implements Iterable<Man> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final LinkedHashMap<String, Man> men = new LinkedHashMap<>();
+    private final HashMap<String, Man> alternateKeys = new HashMap<>();
+    private final WorkerStore store;
+
+    /**
+     * Constructor to initialise a WorkerRegistry, whose Men are kept in an off-heap store.
+     */
+    public WorkerRegistry() {
+        this(true);
+    }
+
+    /**
+     * Constructor to initialise a WorkerRegistry.
+     *
+     * @param offHeap - true = the Men's data is kept off-heap, false = the Men's data is kept on the heap.
+     */
+    public WorkerRegistry(boolean offHeap) {
+        this.store = new WorkerStore(INITIAL_CAPACITY, offHeap);
+    }
+
+    /**
+     * Method to get the normalised key of a Man, this matches 'Man.getName()'.
+     *
+     * @param lastName - Last name of the Man.
+     * @param firstName - First name of the Man.
+     * @return - 'FIRSTNAME LASTNAME'
+     */
+    public static String getKey(String lastName, String firstName) {
+        return firstName.toUpperCase() + " " + lastName.toUpperCase();
+    }
+
+    /**
+     * Method to resolve a Man by name, creating and registering the Man if they don't exist yet.
+     *
+     * @param lastName - Last name of the Man.
+     * @param firstName - First name of the Man.
+     * @param grade - Siemens grade code, only used when the Man is created.
+     * @return - Man Object, or null if the Man doesn't exist and no grade was provided to create them with.
+     */
+    public Man getOrCreate(String lastName, String firstName, String grade) {
+        String key = getKey(lastName, firstName);
+        Man man = men.get(key);
+        if (man == null && grade != null) {
+            man = new Man(lastName, firstName, store);
+            man.setGrade(grade);
+            men.put(key, man);
+        }
+        return man;
+    }
+
+    /**
+     * Method to retrieve a Man from their First name and their Last name.
+     *
+     * @param lastName - Last name of the Man.
+     * @param firstName - First name of the Man.
+     * @return - Man Object.
+     * @throws ManNotFoundException - Thrown if the Man queried doesn't exist.
+     */
+    public Man get(String lastName, String firstName) throws ManNotFoundException {
+        Man man = men.get(getKey(lastName, firstName));
+        if (man == null) {
+            throw new ManNotFoundException("Man '" + firstName + " " + lastName + "' not found.");
+        }
+        return man;
+    }
+
+    /**
+     * Method to link an alternate key, such as a Payroll Number, to a registered Man.
+     *
+     * @param key - Alternate key, compared ignoring case and surrounding whitespace.
+     * @param man - Man to link the key to.
+     * @throws IllegalArgumentException - If the key is empty or the Man isn't registered.
+     */
+    public void addAlternateKey(String key, Man man) throws IllegalArgumentException {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("Alternate key cannot be empty!");
+        }
+        if (man == null || men.get(man.getName()) != man) {
+            throw new IllegalArgumentException("Man must be registered before an alternate key is added!");
+        }
+        alternateKeys.put(key.trim().toUpperCase(), man);
+    }
+
+    /**
+     * Method to retrieve a Man from an alternate key, such as a Payroll Number.
+     *
+     * @param key - Alternate key, compared ignoring case and surrounding whitespace.
+     * @return - Man Object.
+     * @throws ManNotFoundException - Thrown if no Man has the key.
+     */
+    public Man getByAlternateKey(String key) throws ManNotFoundException {
+        Man man = key == null ? null : alternateKeys.get(key.trim().toUpperCase());
+        if (man == null) {
+            throw new ManNotFoundException("No Man has the key '" + key + "'.");
+        }
+        return man;
+    }
+
+    /**
+     * Method to return every Man, in the order they were registered.
+     *
+     * @return - Read-only view of the Men.
+     */
+    public Collection<Man> getMen() {
+        return Collections.unmodifiableCollection(men.values());
+    }
+
+    /**
+     * Method to return the amount of registered Men.
+     *
+     * @return - amount of Men.
+     */
+    public int size() {
+        return men.size();
+    }
+
+    /**
+     * Method to return the store holding the data of every Man, in the order they were registered.
+     *
+     * @return - Worker Store.
+     */
+    public WorkerStore getStore() {
+        return store;
+    }
+
+    /**
+     * Method to remove every Man and alternate key.
+     */
+    public void clear() {
+        men.clear();
+        alternateKeys.clear();
+        store.clear();
+    }
+
+    @Override
+    public Iterator<Man> iterator() {
+        return getMen().iterator();
+    }
+
+}
@@ -0,0 +1,391 @@
+package ac.uk.zpq19yru.objects;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.objects
+    Class Purpose:  Column-wise store of every Man's totals, rates and pays, held in primitive buffers by worker id.
+
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class WorkerStore {
+
+    public static final int RADIUS_COLUMN = 27; // Radius Hours are averaged over their entries.
+
+    private final boolean direct;
+    private int capacity;
+    private int size;
+    private Column[] columns = new Column[0];
+    private IntBuffer radiusEntries;
+    private final BitSet priced = new BitSet();
+
+    /**
+     * Constructor to initialise a WorkerStore.
+     *
+     * @param initialCapacity - Amount of workers to make room for, the store grows when it is exceeded.
+     * @param direct - true = buffers are allocated off-heap, false = buffers are allocated on the heap.
+     * @throws IllegalArgumentException - If the capacity is less than 1.
+     */
+    public WorkerStore(int initialCapacity, boolean direct) throws IllegalArgumentException {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must be at least 1!");
+        }
+        this.direct = direct;
+        this.capacity = initialCapacity;
+        this.radiusEntries = allocate(initialCapacity).asIntBuffer();
+    }
+
+    /**
+     * Method to add a worker to the store, every column of the worker starts empty.
+     *
+     * @return - Id of the worker, ids are handed out in order from 0.
+     */
+    public int addWorker() {
+        if (size == capacity) {
+            grow(capacity * 2);
+        }
+        return size++;
+    }
+
+    /**
+     * Method to return the amount of workers in the store.
+     *
+     * @return - amount of workers.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to add a value onto a worker's column total, values of the Radius column are also counted.
+     *
+     * @param worker - Id of the worker.
+     * @param column - Column which the value was found.
+     * @param value - Value to be added.
+     */
+    public void add(int worker, int column, double value) {
+        add(worker, column, value, 1);
+    }
+
+    /**
+     * Method to add the total of several values onto a worker's column total, e.g. a document's total.
+     * Totals are summed with Neumaier compensation, the low order bits lost by each addition are kept apart
+     * (only once a column loses any), which keeps the rounding error far below that of plain addition. A total
+     * can still differ in its last bits when its values are split between documents differently, but the same
+     * documents merged in the same order give the same total, whatever the thread count.
+     *
+     * @param worker - Id of the worker.
+     * @param column - Column which the values were found.
+     * @param total - Total of the values.
+     * @param entries - Amount of values totalled, counted when the column is the Radius column.
+     */
+    public void add(int worker, int column, double total, int entries) {
+        Column data = getOrCreate(column);
+        double sum = data.totals.get(worker), next = sum + total;
+        double lost = Math.abs(sum) >= Math.abs(total) ? (sum - next) + total : (total - next) + sum;
+        if (lost != 0 && !Double.isInfinite(next)) {
+            if (data.errors == null) {
+                data.errors = allocate(capacity).asDoubleBuffer();
+            }
+            data.errors.put(worker, data.errors.get(worker) + lost);
+        }
+        data.totals.put(worker, next);
+        data.present.set(worker);
+        if (column == RADIUS_COLUMN) {
+            radiusEntries.put(worker, radiusEntries.get(worker) + entries);
+        }
+    }
+
+    /**
+     * Method to determine if a value has been added to a worker's column.
+     *
+     * @param worker - Id of the worker.
+     * @param column - Column index.
+     * @return - true = a value has been added, false = the column is empty.
+     */
+    public boolean has(int worker, int column) {
+        return column < columns.length && columns[column] != null && columns[column].present.get(worker);
+    }
+
+    /**
+     * Method to return the total of a worker's column.
+     *
+     * @param worker - Id of the worker.
+     * @param column - Column index.
+     * @return - Total, 0 if the column is empty.
+     */
+    public double get(int worker, int column) {
+        return has(worker, column) ? columns[column].getTotal(worker) : 0;
+    }
+
+    /**
+     * Method to empty a worker's column, its rate and pay are kept.
+     *
+     * @param worker - Id of the worker.
+     * @param column - Column index.
+     */
+    public void remove(int worker, int column) {
+        if (has(worker, column)) {
+            columns[column].clear(worker);
+        }
+    }
+
+    /**
+     * Method to empty every column of a worker and forget its pricing, as if the worker had just been added.
+     *
+     * @param worker - Id of the worker.
+     */
+    public void reset(int worker) {
+        for (Column column : columns) {
+            if (column == null) {
+                continue;
+            }
+            column.clear(worker);
+            if (column.rates != null) {
+                column.rates.put(worker, 0);
+                column.pays.put(worker, 0);
+            }
+        }
+        radiusEntries.put(worker, 0);
+        priced.clear(worker);
+    }
+
+    /**
+     * Method to return how many values have been added to a worker's Radius column.
+     *
+     * @param worker - Id of the worker.
+     * @return - Amount of Radius values.
+     */
+    public int getRadiusEntries(int worker) {
+        return radiusEntries.get(worker);
+    }
+
+    /**
+     * Method to return the columns of a worker which have had values added.
+     *
+     * @param worker - Id of the worker.
+     * @return - Column indexes, ascending.
+     */
+    public int[] getColumns(int worker) {
+        int[] found = new int[columns.length];
+        int count = 0;
+        for (int column = 0; column < columns.length; column++) {
+            if (has(worker, column)) {
+                found[count++] = column;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Method to return the columns of any worker which have had values added.
+     *
+     * @return - Column indexes, ascending.
+     */
+    public int[] getColumns() {
+        int[] found = new int[columns.length];
+        int count = 0;
+        for (int column = 0; column < columns.length; column++) {
+            if (columns[column] != null && !columns[column].present.isEmpty()) {
+                found[count++] = column;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Method to total a column over every worker, reading the column straight through.
+     *
+     * @param column - Column index.
+     * @return - Total of the column, Radius values aren't averaged.
+     */
+    public double getColumnTotal(int column) {
+        if (column >= columns.length || columns[column] == null) {
+            return 0;
+        }
+        Column data = columns[column];
+        double total = 0;
+        for (int worker = 0; worker < size; worker++) {
+            total += data.getTotal(worker);
+        }
+        return total;
+    }
+
+    /**
+     * Method to forget the Rate and Pay of every column of a worker and mark the worker as priced, the Rate and
+     * Pay of each paid column are then saved by 'setPricing()'.
+     *
+     * @param worker - Id of the worker.
+     */
+    public void startPricing(int worker) {
+        for (Column column : columns) {
+            if (column != null && column.rates != null) {
+                column.rates.put(worker, 0);
+                column.pays.put(worker, 0);
+            }
+        }
+        priced.set(worker);
+    }
+
+    /**
+     * Method to save the Rate and Pay of a worker's column, straight into the column's buffers.
+     * The buffers are only created once a column has a Rate or Pay which isn't 0.
+     *
+     * @param worker - Id of the worker.
+     * @param column - Column index.
+     * @param rate - Rate of the column.
+     * @param pay - Pay of the column.
+     */
+    public void setPricing(int worker, int column, double rate, double pay) {
+        if (rate == 0 && pay == 0 && getRate(worker, column) == 0 && getPay(worker, column) == 0) {
+            return;
+        }
+        Column data = getOrCreate(column);
+        if (data.rates == null) {
+            data.rates = allocate(capacity).asDoubleBuffer();
+            data.pays = allocate(capacity).asDoubleBuffer();
+        }
+        data.rates.put(worker, rate);
+        data.pays.put(worker, pay);
+    }
+
+    /**
+     * Method to determine if a worker has been priced.
+     *
+     * @param worker - Id of the worker.
+     * @return - true = priced, false = not priced.
+     */
+    public boolean isPriced(int worker) {
+        return priced.get(worker);
+    }
+
+    /**
+     * Method to return the Rate of a worker's column.
+     *
+     * @param worker - Id of the worker.
+     * @param column - Column index.
+     * @return - Rate, 0 for columns which aren't paid.
+     */
+    public double getRate(int worker, int column) {
+        return column < columns.length && columns[column] != null && columns[column].rates != null
+                ? columns[column].rates.get(worker) : 0;
+    }
+
+    /**
+     * Method to return the Pay of a worker's column.
+     *
+     * @param worker - Id of the worker.
+     * @param column - Column index.
+     * @return - Pay, 0 for columns which aren't paid.
+     */
+    public double getPay(int worker, int column) {
+        return column < columns.length && columns[column] != null && columns[column].pays != null
+                ? columns[column].pays.get(worker) : 0;
+    }
+
+    /**
+     * Method to remove every worker, releasing the buffers.
+     */
+    public void clear() {
+        columns = new Column[0];
+        priced.clear();
+        size = 0;
+        radiusEntries = allocate(capacity).asIntBuffer();
+    }
+
+    /**
+     * Helper method to find a column, creating it with room for every worker if it doesn't exist.
+     *
+     * @param column - Column index.
+     * @return - Column.
+     */
+    private Column getOrCreate(int column) {
+        if (column >= columns.length) {
+            columns = Arrays.copyOf(columns, column + 1);
+        }
+        if (columns[column] == null) {
+            columns[column] = new Column(allocate(capacity).asDoubleBuffer());
+        }
+        return columns[column];
+    }
+
+    /**
+     * Helper method to move every buffer into larger buffers, keeping their contents.
+     *
+     * @param newCapacity - Amount of workers to make room for.
+     */
+    private void grow(int newCapacity) {
+        for (Column column : columns) {
+            if (column != null) {
+                column.totals = copy(column.totals, newCapacity);
+                if (column.errors != null) {
+                    column.errors = copy(column.errors, newCapacity);
+                }
+                if (column.rates != null) {
+                    column.rates = copy(column.rates, newCapacity);
+                    column.pays = copy(column.pays, newCapacity);
+                }
+            }
+        }
+        IntBuffer entries = allocate(newCapacity).asIntBuffer();
+        radiusEntries.clear();
+        entries.put(radiusEntries).clear();
+        radiusEntries = entries;
+        capacity = newCapacity;
+    }
+
+    private DoubleBuffer copy(DoubleBuffer buffer, int newCapacity) {
+        DoubleBuffer copy = allocate(newCapacity).asDoubleBuffer();
+        buffer.clear();
+        copy.put(buffer).clear();
+        return copy;
+    }
+
+    /**
+     * Helper method to allocate a zeroed buffer of 8 bytes per worker, enough for a double or an int.
+     *
+     * @param workers - Amount of workers.
+     * @return - Buffer in native byte order.
+     */
+    private ByteBuffer allocate(int workers) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(workers * Double.BYTES)
+                : ByteBuffer.allocate(workers * Double.BYTES);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * A single column of the store, the rates and pays are only created for paid columns.
+     */
+    private static class Column {
+
+        private DoubleBuffer totals, errors, rates, pays; // Errors are null until an addition loses any bits.
+        private final BitSet present = new BitSet();
+
+        private Column(DoubleBuffer totals) {
+            this.totals = totals;
+        }
+
+        private double getTotal(int worker) {
+            return errors == null ? totals.get(worker) : totals.get(worker) + errors.get(worker);
+        }
+
+        private void clear(int worker) {
+            totals.put(worker, 0);
+            if (errors != null) {
+                errors.put(worker, 0);
+            }
+            present.clear(worker);
+        }
+
+    }
+
+}
@@ -0,0 +1,362 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Persists the totals of each Timesheet, so unchanged Timesheets aren't read again on the next run.
+
+*/
+
+import ac.uk.zpq19yru.objects.DocumentTotals;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class AggregateCache {
+
+    private static final int FORMAT_VERSION = 2;
+
+    private final File cacheFile;
+    private final String signature;
+    private final ConcurrentHashMap<String, Entry> loaded = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> current = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger(), misses = new AtomicInteger();
+
+    /**
+     * Constructor to initialise an AggregateCache.
+     *
+     * @param cacheFile - File the cache is loaded from and saved to.
+     * @param signature - Describes how totals are read (reader, columns), a cache saved with another signature
+     *                    is discarded rather than loaded.
+     */
+    public AggregateCache(File cacheFile, String signature) {
+        this.cacheFile = cacheFile;
+        this.signature = signature;
+    }
+
+    /**
+     * Method to load the cache from file, a missing, outdated or damaged cache is treated as empty.
+     *
+     * @return - Amount of documents loaded.
+     */
+    public int load() {
+        loaded.clear();
+        if (!cacheFile.isFile()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(cacheFile))))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(signature)) {
+                System.out.println("Cache '" + cacheFile.getName() + "' is outdated and will be rebuilt.");
+                return 0;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = readEntry(in);
+                loaded.put(entry.path, entry);
+            }
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("Failed to load the cache '" + cacheFile.getName() + "', it will be rebuilt.");
+            loaded.clear();
+        }
+        return loaded.size();
+    }
+
+    /**
+     * Method to save every document used since the cache was loaded, documents no longer found are dropped.
+     *
+     * @throws IOException - If the cache cannot be written.
+     */
+    public void save() throws IOException {
+        File temp = getTempFile();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(temp))))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(signature);
+            out.writeInt(current.size());
+            for (Entry entry : current.values()) {
+                writeEntry(out, entry);
+            }
+        }
+        Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Method to take the attributes of a document before it is read, its content is only hashed when needed.
+     *
+     * @param source - Timesheet about to be looked up and read.
+     * @return - Stamp to look the document up with and to cache its totals against.
+     * @throws IOException - If the document's attributes cannot be read.
+     */
+    public Stamp stamp(File source) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source.toPath(), BasicFileAttributes.class);
+        return new Stamp(source, getPath(source), attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Method to get the cached totals of a document, if the document hasn't changed since it was cached.
+     * A document with the same size and modified time is unchanged, otherwise its content hash is compared.
+     *
+     * @param stamp - Stamp of the Timesheet to look up.
+     * @return - Cached totals, or null if the document must be read.
+     * @throws IOException - If the document's content cannot be read.
+     */
+    public DocumentTotals get(Stamp stamp) throws IOException {
+        Entry entry = current.get(stamp.path); // Read again since the cache was loaded, when kept running.
+        if (entry == null) {
+            entry = loaded.get(stamp.path);
+        }
+        if (entry != null && entry.size == stamp.size
+                && (entry.modified == stamp.modified || Arrays.equals(entry.hash, getHash(stamp)))) {
+            current.put(stamp.path, new Entry(stamp.path, stamp.size, stamp.modified, entry.hash, entry.totals));
+            hits.incrementAndGet();
+            return entry.totals;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Method to cache the totals of a document which has just been read.
+     * The totals are only cached if the document still has the attributes it was stamped with once hashed,
+     * a document saved whilst it was being read may have given totals of neither version.
+     * A hash already taken by 'get()' is reused, so the document is hashed at most once.
+     *
+     * @param stamp - Stamp of the Timesheet, taken before it was read.
+     * @param totals - Totals read from the Timesheet.
+     * @return - true = cached, false = the document changed whilst it was read.
+     * @throws IOException - If the document's attributes or content cannot be read.
+     */
+    public boolean put(Stamp stamp, DocumentTotals totals) throws IOException {
+        byte[] hash = getHash(stamp);
+        BasicFileAttributes attributes = Files.readAttributes(stamp.source.toPath(), BasicFileAttributes.class);
+        if (attributes.size() != stamp.size || attributes.lastModifiedTime().toMillis() != stamp.modified) {
+            current.remove(stamp.path);
+            System.out.println("'" + stamp.source.getName() + "' changed whilst it was read, it hasn't been cached.");
+            return false;
+        }
+        current.put(stamp.path, new Entry(stamp.path, stamp.size, stamp.modified, hash, totals));
+        return true;
+    }
+
+    /**
+     * Method to forget a document which no longer exists, so it isn't saved with the cache.
+     *
+     * @param source - Timesheet which was removed.
+     */
+    public void remove(File source) {
+        current.remove(getPath(source));
+    }
+
+    /**
+     * Method to return how many documents were found in the cache since it was loaded.
+     *
+     * @return - { Hits, Misses }
+     */
+    public int[] getStatistics() {
+        return new int[] { hits.get(), misses.get() };
+    }
+
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Method to return the file the cache is written to before it replaces the cache file.
+     *
+     * @return - Temporary File, e.g. 'UKERLTD - Output.cache.tmp'.
+     */
+    public File getTempFile() {
+        return new File(cacheFile.getAbsoluteFile().getParentFile(), cacheFile.getName() + ".tmp");
+    }
+
+    /**
+     * Helper method to get the key of a document.
+     *
+     * @param source - Timesheet.
+     * @return - Absolute, normalised path.
+     */
+    private String getPath(File source) {
+        return source.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * Helper method to get the content hash of a stamped document, hashing it the first time it is needed.
+     *
+     * @param stamp - Stamp of the Timesheet.
+     * @return - SHA-256 of the content.
+     * @throws IOException - If the document cannot be read.
+     */
+    private byte[] getHash(Stamp stamp) throws IOException {
+        if (stamp.hash == null) {
+            stamp.hash = hash(stamp.source);
+        }
+        return stamp.hash;
+    }
+
+    /**
+     * Helper method to hash the content of a document.
+     *
+     * @param source - Timesheet.
+     * @return - SHA-256 of the content.
+     * @throws IOException - If the document cannot be read.
+     */
+    private byte[] hash(File source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 isn't supported by this JVM.", ex);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(source)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Helper method to write a cached document.
+     *
+     * @param out - Stream to write to.
+     * @param entry - Cached document.
+     * @throws IOException - If the stream cannot be written to.
+     */
+    private void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        out.writeUTF(entry.path);
+        out.writeLong(entry.size);
+        out.writeLong(entry.modified);
+        out.writeShort(entry.hash.length);
+        out.write(entry.hash);
+
+        DocumentTotals totals = entry.totals;
+        out.writeUTF(totals.getDocumentName());
+        String[] headers = totals.getHeaders();
+        out.writeInt(headers == null ? -1 : headers.length);
+        if (headers != null) {
+            for (String header : headers) {
+                out.writeUTF(header);
+            }
+        }
+        out.writeInt(totals.getWorkers().size());
+        for (DocumentTotals.WorkerTotals worker : totals.getWorkers()) {
+            out.writeUTF(worker.getLastName());
+            out.writeUTF(worker.getFirstName());
+            out.writeBoolean(worker.getGrade() != null);
+            if (worker.getGrade() != null) {
+                out.writeUTF(worker.getGrade());
+            }
+            out.writeInt(worker.getColumns());
+            for (int column = 0; column < worker.getColumns(); column++) {
+                out.writeInt(worker.getEntries(column));
+                if (worker.getEntries(column) > 0) {
+                    out.writeDouble(worker.getSum(column));
+                    out.writeDouble(worker.getCompensation(column));
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method to read a cached document.
+     *
+     * @param in - Stream to read from.
+     * @return - Cached document.
+     * @throws IOException - If the stream cannot be read from.
+     */
+    private Entry readEntry(DataInputStream in) throws IOException {
+        String path = in.readUTF();
+        long size = in.readLong();
+        long modified = in.readLong();
+        byte[] hash = new byte[in.readShort()];
+        in.readFully(hash);
+
+        DocumentTotals totals = new DocumentTotals(in.readUTF());
+        int headerCount = in.readInt();
+        if (headerCount >= 0) {
+            String[] headers = new String[headerCount];
+            for (int i = 0; i < headerCount; i++) {
+                headers[i] = in.readUTF();
+            }
+            totals.setHeaders(headers, headerCount);
+        }
+        int workers = in.readInt();
+        for (int i = 0; i < workers; i++) {
+            DocumentTotals.WorkerTotals worker = totals.getOrCreateWorker(in.readUTF(), in.readUTF());
+            if (in.readBoolean()) {
+                worker.setGrade(in.readUTF());
+            }
+            int columns = in.readInt();
+            for (int column = 0; column < columns; column++) {
+                int entries = in.readInt();
+                if (entries > 0) {
+                    worker.setSum(column, in.readDouble(), in.readDouble(), entries);
+                }
+            }
+        }
+        return new Entry(path, size, modified, hash, totals);
+    }
+
+    /**
+     * Attributes of a document taken before it is read, only used by the thread reading the document.
+     */
+    public static class Stamp {
+
+        private final File source;
+        private final String path;
+        private final long size, modified;
+        private byte[] hash;
+
+        private Stamp(File source, String path, long size, long modified) {
+            this.source = source;
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+
+    }
+
+    /**
+     * A cached document, its attributes when it was read and the totals read from it.
+     */
+    private static class Entry {
+
+        private final String path;
+        private final long size, modified;
+        private final byte[] hash;
+        private final DocumentTotals totals;
+
+        private Entry(String path, long size, long modified, byte[] hash, DocumentTotals totals) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.totals = totals;
+        }
+
+    }
+
+}
@@ -0,0 +1,184 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Runs scanning, reading and collecting as overlapping stages with a bounded amount of work in flight.
+
+*/
+
+import ac.uk.zpq19yru.objects.DocumentTotals;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+public class CollationPipeline {
+
+    private static final Task END = new Task(null); // Marks the end of the scan for the readers and the collector.
+
+    private final PayrollCollator collator;
+    private final int window;
+
+    /**
+     * Constructor to initialise a CollationPipeline.
+     *
+     * @param collator - Collator to read documents with and collect the data into.
+     * @param window - Maximum amount of documents scanned but not yet collected, 0 or less for twice the thread count.
+     */
+    public CollationPipeline(PayrollCollator collator, int window) {
+        this.collator = collator;
+        this.window = window > 0 ? window : collator.getThreads() * 2;
+    }
+
+    /**
+     * Method to scan a folder and collect every XLSX File found into the Man Directories.
+     *
+     * One thread scans the folder and queues each file found, blocking once 'window' files are in flight.
+     * Reader threads take files from the queue and turn each one into its totals, the document is released
+     * as soon as it has been read. The calling thread collects the totals in the order the files were found,
+     * so the Man Directories match 'collectDocuments()' followed by 'streamDocuments()' exactly.
+     *
+     * @param root - Folder to scan within.
+     * @return - { RelevantDocumentsFound, DocumentsCollected, Errors }.
+     */
+    public int[] run(File root) {
+        return run(Collections.singletonList(root));
+    }
+
+    /**
+     * Method to scan several folders and collect every XLSX File found into the Man Directories.
+     * The folders are scanned one after the other, as if their files had all been found within one folder.
+     *
+     * @param roots - Folders to scan within, in order.
+     * @return - { RelevantDocumentsFound, DocumentsCollected, Errors }.
+     */
+    public int[] run(List<File> roots) {
+        int threads = collator.getThreads();
+        Semaphore inFlight = new Semaphore(window);
+        BlockingQueue<Task> readQueue = new ArrayBlockingQueue<>(window + threads);
+        BlockingQueue<Task> collectQueue = new LinkedBlockingQueue<>(); // Bounded by 'inFlight'.
+
+        Thread scanner = new Thread(() -> {
+            try {
+                for (File root : roots) {
+                    collator.scanDocuments(root, file -> {
+                        try {
+                            inFlight.acquire();
+                            Task task = new Task(file);
+                            collectQueue.put(task);
+                            readQueue.put(task);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            throw new CancellationException("Scanning was interrupted.");
+                        }
+                    });
+                }
+            } catch (CancellationException ignored) {
+            } finally {
+                for (int i = 0; i < threads; i++) {
+                    putQuietly(readQueue, END);
+                }
+                putQuietly(collectQueue, END);
+            }
+        }, "Collator-Scanner");
+
+        Thread[] readers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            readers[i] = new Thread(() -> {
+                try {
+                    Task task;
+                    while ((task = readQueue.take()) != END) {
+                        try {
+                            task.totals.complete(collator.collectFile(task.file));
+                        } catch (Throwable ex) {
+                            task.totals.completeExceptionally(ex);
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Collator-Reader-" + (i + 1));
+        }
+
+        scanner.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+
+        int documentsCollected = 0, errorsEncountered = 0;
+        try {
+            Task task;
+            while ((task = collectQueue.take()) != END) {
+                try {
+                    collator.mergeTotals(task.totals.get());
+                    documentsCollected++;
+                } catch (ExecutionException ex) {
+                    if (PayrollCollator.reportFailure(ex, task.file.getName())) {
+                        errorsEncountered++;
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            }
+            scanner.join();
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted whilst collecting documents!");
+            scanner.interrupt();
+            for (Thread reader : readers) {
+                reader.interrupt();
+            }
+        }
+        return new int[] { collator.amountOfDocumentsFound()[1], documentsCollected, errorsEncountered };
+    }
+
+    /**
+     * Helper method to queue a marker, even if the current thread has been interrupted.
+     *
+     * @param queue - Queue to add to.
+     * @param task - Task to add.
+     */
+    private void putQuietly(BlockingQueue<Task> queue, Task task) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(task);
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A File in flight, and the totals which will be read from it.
+     */
+    private static class Task {
+
+        private final File file;
+        private final CompletableFuture<DocumentTotals> totals = new CompletableFuture<>();
+
+        private Task(File file) {
+            this.file = file;
+        }
+
+    }
+
+}
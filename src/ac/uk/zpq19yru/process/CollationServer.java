@@ -0,0 +1,528 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Local HTTP service answering from the collated Timesheets kept in memory by a TimesheetWatcher.
+
+*/
+
+import ac.uk.zpq19yru.Main;
+import ac.uk.zpq19yru.exceptions.ManNotFoundException;
+import ac.uk.zpq19yru.objects.Man;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CollationServer implements Closeable {
+
+    private static final String XLSX_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+
+    private final TimesheetWatcher watcher;
+    private final PayrollCollator collator;
+    private final File uploads;
+    private final long maxUpload;
+    private final HttpServer server;
+    private final ExecutorService pool;
+    private final boolean virtual;
+    private final int concurrency;
+
+    /**
+     * Constructor to initialise a CollationServer, it doesn't accept requests until started.
+     *
+     * GET /workbook - The Output File, as last saved.
+     * GET /totals - Every Man's values, rates and pays as JSON.
+     * GET /workers?last=..&first=.. - A single Man as JSON.
+     * POST /timesheets?name=..xlsx - Saves the body as a Timesheet in 'uploads' and collates it straight away.
+     *
+     * @param watcher - Watcher keeping the collator up to date, every query is made through it.
+     * @param collator - Collator being watched.
+     * @param address - Address and port to listen on, port 0 for any free port.
+     * @param concurrency - Maximum amount of requests handled at once, further requests wait to be handled.
+     * @param uploads - Folder uploaded Timesheets are saved to, which must be within a watched folder.
+     * @param maxUpload - Maximum size of an uploaded Timesheet, in bytes.
+     * @throws IOException - If the address cannot be listened on.
+     */
+    public CollationServer(TimesheetWatcher watcher, PayrollCollator collator, InetSocketAddress address,
+                           int concurrency, File uploads, long maxUpload) throws IOException {
+        this.watcher = watcher;
+        this.collator = collator;
+        this.uploads = uploads;
+        this.maxUpload = maxUpload;
+        this.concurrency = Math.max(concurrency, 1);
+        ExecutorService virtualPool = createVirtualPool();
+        this.virtual = virtualPool != null;
+        this.pool = virtual ? virtualPool : Executors.newFixedThreadPool(this.concurrency, new HttpThreadFactory());
+
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/workbook", exchange -> handle(exchange, "GET", this::sendWorkbook));
+        server.createContext("/totals", exchange -> handle(exchange, "GET", this::sendTotals));
+        server.createContext("/workers", exchange -> handle(exchange, "GET", this::sendWorker));
+        server.createContext("/timesheets", exchange -> handle(exchange, "POST", this::receiveTimesheet));
+        server.setExecutor(new BoundedExecutor(pool, this.concurrency));
+    }
+
+    /**
+     * Method to start accepting requests.
+     */
+    public void start() {
+        server.start();
+        System.out.println("Serving collated Timesheets on http://" + server.getAddress().getHostString() + ":"
+                + getPort() + "/, handling up to " + concurrency + " requests at once ("
+                + (virtual ? "virtual threads" : "platform threads") + ").");
+    }
+
+    /**
+     * Method to return the port being listened on, useful when started on port 0.
+     *
+     * @return - Port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Method to stop accepting requests, requests being handled are given a second to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        pool.shutdown();
+    }
+
+    /**
+     * Helper method to handle a request, answering with an error if it fails.
+     *
+     * @param exchange - Request and response.
+     * @param method - Method the path accepts.
+     * @param handler - Handler of the request.
+     */
+    private void handle(HttpExchange exchange, String method, Handler handler) {
+        long start = System.nanoTime();
+        int status;
+        try {
+            if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                status = sendError(exchange, 404, "Nothing is found at '" + exchange.getRequestURI().getPath() + "'.");
+            } else if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                status = sendError(exchange, 405, "Only " + method + " is allowed.");
+            } else {
+                status = handler.handle(exchange);
+            }
+        } catch (IOException | RuntimeException ex) {
+            status = 500;
+            System.err.println(ex.getClass().getSimpleName() + " encountered for request '"
+                    + exchange.getRequestURI() + "'!");
+            try {
+                sendError(exchange, status, "The request couldn't be handled.");
+            } catch (IOException ignored) {} // The response had already been started.
+        } finally {
+            exchange.close();
+        }
+        System.out.println(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " " + status + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+    }
+
+    /**
+     * Helper method to send the Output File.
+     *
+     * @param exchange - Request and response.
+     * @return - Status sent.
+     * @throws IOException - If the response cannot be sent.
+     */
+    private int sendWorkbook(HttpExchange exchange) throws IOException {
+        byte[] workbook = watcher.read(() -> {
+            try {
+                return Files.readAllBytes(collator.getOutputFile().toPath());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        if (workbook.length == 0) {
+            return sendError(exchange, 503, "No Timesheets have been collated yet.");
+        }
+        exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=\"" + collator.getOutputFile().getName() + "\"");
+        return send(exchange, 200, XLSX_TYPE, workbook);
+    }
+
+    /**
+     * Helper method to send every Man's totals.
+     *
+     * @param exchange - Request and response.
+     * @return - Status sent.
+     * @throws IOException - If the response cannot be sent.
+     */
+    private int sendTotals(HttpExchange exchange) throws IOException {
+        int documents = watcher.getDocumentCount();
+        String json = watcher.read(() -> {
+            Map<Integer, String> headers = collator.getHeaders();
+            StringBuilder builder = new StringBuilder("{\n");
+            builder.append("  \"documents\": ").append(documents).append(",\n");
+            builder.append("  \"workers\": ").append(collator.getWorkers().size()).append(",\n");
+            builder.append("  \"headers\": {");
+            String separator = "";
+            for (Map.Entry<Integer, String> header : new TreeMap<>(headers).entrySet()) {
+                builder.append(separator).append(PerformanceReport.quote(String.valueOf(header.getKey())))
+                        .append(": ").append(PerformanceReport.quote(String.valueOf(header.getValue())));
+                separator = ", ";
+            }
+            builder.append("},\n  \"men\": [");
+            separator = "\n    ";
+            for (Man man : collator.getWorkers()) {
+                builder.append(separator);
+                appendMan(builder, man, headers);
+                separator = ",\n    ";
+            }
+            return builder.append(collator.getWorkers().size() == 0 ? "]\n}\n" : "\n  ]\n}\n").toString();
+        });
+        return send(exchange, 200, JSON_TYPE, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Helper method to send a single Man's totals.
+     *
+     * @param exchange - Request and response.
+     * @return - Status sent.
+     * @throws IOException - If the response cannot be sent.
+     */
+    private int sendWorker(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String last = query.get("last"), first = query.get("first");
+        if (last == null || first == null) {
+            return sendError(exchange, 400, "Both 'last' and 'first' are required.");
+        }
+        String json = watcher.read(() -> {
+            Man man;
+            try {
+                man = collator.getWorkers().get(last, first);
+            } catch (ManNotFoundException ex) {
+                return null;
+            }
+            StringBuilder builder = new StringBuilder();
+            appendMan(builder, man, collator.getHeaders());
+            return builder.append('\n').toString();
+        });
+        if (json == null) {
+            return sendError(exchange, 404, "Man '" + first + " " + last + "' not found.");
+        }
+        return send(exchange, 200, JSON_TYPE, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Helper method to save an uploaded Timesheet and collate it.
+     * The body is written to a temporary file first, so a partial upload is never read as a Timesheet, and it
+     * only replaces a Timesheet of the same name once it opens as a Workbook. The replaced Timesheet is kept
+     * aside until the upload is collected, and put back if it isn't.
+     *
+     * @param exchange - Request and response.
+     * @return - Status sent.
+     * @throws IOException - If the Timesheet cannot be saved or the response cannot be sent.
+     */
+    private int receiveTimesheet(HttpExchange exchange) throws IOException {
+        String name = parseQuery(exchange.getRequestURI().getRawQuery()).get("name");
+        if (name == null || name.isEmpty() || name.startsWith(".") || name.contains("/") || name.contains("\\")
+                || !name.toLowerCase().endsWith(".xlsx") || name.equalsIgnoreCase(Main.OUTPUT_FILE_NAME)
+                || name.equalsIgnoreCase(collator.getOutputFile().getName())) {
+            return sendError(exchange, 400, "A 'name' ending in '.xlsx' is required, without any folders.");
+        }
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null && length.matches("\\d+") && Long.parseLong(length) > maxUpload) {
+            return sendError(exchange, 413, "Timesheets are limited to " + maxUpload + " bytes.");
+        }
+
+        File target = new File(uploads, name);
+        String prefix = "." + name + "." + Thread.currentThread().getId();
+        File temp = new File(uploads, prefix + ".part");
+        long size = 0;
+        try (InputStream in = exchange.getRequestBody(); OutputStream out = Files.newOutputStream(temp.toPath())) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                if (size > maxUpload) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException ex) {
+            Files.deleteIfExists(temp.toPath());
+            throw ex;
+        }
+        if (size > maxUpload) {
+            Files.deleteIfExists(temp.toPath());
+            return sendError(exchange, 413, "Timesheets are limited to " + maxUpload + " bytes.");
+        }
+        if (!isWorkbook(temp)) {
+            Files.deleteIfExists(temp.toPath());
+            return sendError(exchange, 422, "'" + name + "' couldn't be read as a Timesheet, or isn't scanned.");
+        }
+
+        File replaced = target.exists() ? new File(uploads, prefix + ".bak") : null;
+        try {
+            if (replaced != null) {
+                Files.move(target.toPath(), replaced.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            Files.deleteIfExists(temp.toPath());
+            restore(replaced, target);
+            throw ex;
+        }
+
+        watcher.update(Collections.singletonList(target));
+        if (!watcher.isCollected(target)) {
+            if (replaced == null) {
+                Files.deleteIfExists(target.toPath());
+            } else {
+                restore(replaced, target);
+                watcher.update(Collections.singletonList(target));
+            }
+            return sendError(exchange, 422, "'" + name + "' couldn't be read as a Timesheet, or isn't scanned.");
+        }
+        if (replaced != null) {
+            Files.deleteIfExists(replaced.toPath());
+        }
+        int workers = watcher.read(() -> collator.getWorkers().size());
+        String json = "{\"document\": " + PerformanceReport.quote(name) + ", \"bytes\": " + size
+                + ", \"documents\": " + watcher.getDocumentCount() + ", \"workers\": " + workers + "}\n";
+        return send(exchange, 201, JSON_TYPE, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Helper method to put a Timesheet set aside by an upload back in place.
+     *
+     * @param replaced - Timesheet set aside, null if the upload didn't replace one.
+     * @param target - Where the Timesheet belongs.
+     * @throws IOException - If the Timesheet cannot be put back, it is left as 'replaced'.
+     */
+    private static void restore(File replaced, File target) throws IOException {
+        if (replaced != null && replaced.exists()) {
+            Files.move(replaced.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Helper method to determine if a file opens as an XLSX Workbook, without parsing any of its sheets.
+     *
+     * @param file - File to check.
+     * @return - true = a Workbook, false = not a package or has no Workbook.
+     */
+    private static boolean isWorkbook(File file) {
+        try {
+            OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+            try {
+                new XSSFReader(pkg);
+                return true;
+            } finally {
+                pkg.revert();
+            }
+        } catch (IOException | OpenXML4JException | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Helper method to append a Man as JSON, with the value, rate and pay of each column holding data.
+     *
+     * @param builder - Builder to append to.
+     * @param man - Man to append.
+     * @param headers - Headers of the Output Document, indexed by column.
+     */
+    private static void appendMan(StringBuilder builder, Man man, Map<Integer, String> headers) {
+        boolean priced = man.isPriced();
+        builder.append("{\"last\": ").append(PerformanceReport.quote(man.getLast()))
+                .append(", \"first\": ").append(PerformanceReport.quote(man.getFirst()))
+                .append(", \"grade\": ")
+                .append(man.getGrade() == null ? "null" : PerformanceReport.quote(man.getGrade()))
+                .append(", \"priced\": ").append(priced)
+                .append(", \"columns\": [");
+        double total = 0;
+        String separator = "";
+        for (int column : man.getColumns()) {
+            String header = headers.get(column);
+            builder.append(separator).append("{\"column\": ").append(column)
+                    .append(", \"header\": ").append(header == null ? "null" : PerformanceReport.quote(header))
+                    .append(", \"value\": ").append(number(man.getData(column)));
+            if (priced) {
+                builder.append(", \"rate\": ").append(number(man.getRate(column)))
+                        .append(", \"pay\": ").append(number(man.getPay(column)));
+                total += man.getPay(column);
+            }
+            builder.append('}');
+            separator = ", ";
+        }
+        builder.append("], \"total_pay\": ").append(priced ? number(total) : "null").append('}');
+    }
+
+    /**
+     * Helper method to write a number as JSON, which has no NaN or Infinity.
+     *
+     * @param value - Value.
+     * @return - Shortest text reading back as the same double, or null.
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+
+    /**
+     * Helper method to split a query string into its parameters, the first of any repeated parameter is kept.
+     *
+     * @param query - Raw query, may be null.
+     * @return - Decoded parameters.
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        try {
+            for (String parameter : query.split("&")) {
+                int split = parameter.indexOf('=');
+                String key = URLDecoder.decode(split < 0 ? parameter : parameter.substring(0, split), "UTF-8");
+                String value = split < 0 ? "" : URLDecoder.decode(parameter.substring(split + 1), "UTF-8");
+                parameters.putIfAbsent(key, value);
+            }
+        } catch (UnsupportedEncodingException | IllegalArgumentException ignored) {} // Malformed, use what was read.
+        return parameters;
+    }
+
+    /**
+     * Helper method to send an error as JSON.
+     *
+     * @param exchange - Request and response.
+     * @param status - HTTP status.
+     * @param message - Description of the error.
+     * @return - Status sent.
+     * @throws IOException - If the response cannot be sent.
+     */
+    private static int sendError(HttpExchange exchange, int status, String message) throws IOException {
+        String json = "{\"error\": " + PerformanceReport.quote(message) + "}\n";
+        return send(exchange, status, JSON_TYPE, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Helper method to send a response.
+     *
+     * @param exchange - Request and response.
+     * @param status - HTTP status.
+     * @param type - Content type of the body.
+     * @param body - Body.
+     * @return - Status sent.
+     * @throws IOException - If the response cannot be sent.
+     */
+    private static int send(HttpExchange exchange, int status, String type, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        return status;
+    }
+
+    /**
+     * Helper method to create a pool starting a virtual thread per request, on a JVM which supports them (21+).
+     * The program is built for Java 8, so the pool is looked up rather than referenced.
+     *
+     * @return - Pool, or null if virtual threads aren't supported.
+     */
+    private static ExecutorService createVirtualPool() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Handler of a single request.
+     */
+    private interface Handler {
+
+        int handle(HttpExchange exchange) throws IOException;
+
+    }
+
+    /**
+     * Executor which hands requests to a pool, but never more than a fixed amount at once.
+     * Once the limit is reached, the server waits before taking further requests off its connections.
+     */
+    private static class BoundedExecutor implements Executor {
+
+        private final Executor pool;
+        private final Semaphore permits;
+
+        private BoundedExecutor(Executor pool, int limit) {
+            this.pool = pool;
+            this.permits = new Semaphore(limit);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            permits.acquireUninterruptibly();
+            try {
+                pool.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                permits.release();
+                throw ex;
+            }
+        }
+
+    }
+
+    /**
+     * Names the platform threads handling requests, when virtual threads aren't supported.
+     */
+    private static class HttpThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Collator-Http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,129 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Maps each collected column to its position on the Summary, Hours and Expenses sheets.
+
+*/
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+public class ColumnPlan {
+
+    public static final int SUMMARY = 0, HOURS = 1, EXPENSES = 2;
+    public static final int FIRST_TARGET_COLUMN = 2; // After the Last Name and First Name.
+
+    private final int[] columns;
+    private final BitSet[] members = new BitSet[] { new BitSet(), new BitSet(), new BitSet() };
+    private final int[][] targets = new int[3][];
+    private final int[] widths = new int[3];
+
+    /**
+     * Constructor to build a ColumnPlan.
+     * Every sheet lists its columns in ascending source order, the Summary sheet lists every column,
+     * the Hours and Expenses sheets only list the columns required by them.
+     *
+     * @param sourceColumns - Columns collected into the Man Directories, in any order, duplicates are ignored.
+     * @param hoursRequired - Columns shown on the Hours sheet.
+     * @param expensesRequired - Columns shown on the Expenses sheet.
+     */
+    public ColumnPlan(Collection<Integer> sourceColumns, List<Integer> hoursRequired,
+                      List<Integer> expensesRequired) {
+        BitSet all = new BitSet();
+        for (int column : sourceColumns) {
+            all.set(column);
+        }
+        this.columns = all.stream().toArray();
+        members[SUMMARY].or(all);
+        for (int column : hoursRequired) {
+            if (all.get(column)) {
+                members[HOURS].set(column);
+            }
+        }
+        for (int column : expensesRequired) {
+            if (all.get(column)) {
+                members[EXPENSES].set(column);
+            }
+        }
+        int size = columns.length == 0 ? 0 : columns[columns.length - 1] + 1;
+        for (int sheet = 0; sheet < 3; sheet++) {
+            targets[sheet] = new int[size];
+            Arrays.fill(targets[sheet], -1);
+            for (int column : columns) {
+                if (members[sheet].get(column)) {
+                    targets[sheet][column] = FIRST_TARGET_COLUMN + widths[sheet]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to return every source column, in the order they are written.
+     *
+     * @return - Source columns, ascending.
+     */
+    public int[] getColumns() {
+        return columns;
+    }
+
+    /**
+     * Method to determine if a source column is written to a sheet.
+     *
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @param column - Source column.
+     * @return - true = written, false = not written.
+     */
+    public boolean contains(int sheet, int column) {
+        return members[sheet].get(column);
+    }
+
+    /**
+     * Method to return where a source column is written on a sheet.
+     *
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @param column - Source column.
+     * @return - Column index on the sheet, or -1 if it isn't written to the sheet.
+     */
+    public int getTarget(int sheet, int column) {
+        return column < targets[sheet].length ? targets[sheet][column] : -1;
+    }
+
+    /**
+     * Method to return how many source columns are written to a sheet.
+     *
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @return - Amount of columns, excluding the names.
+     */
+    public int getWidth(int sheet) {
+        return widths[sheet];
+    }
+
+    /**
+     * Method to return the column after the last source column of a sheet, where its totals are written.
+     *
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @return - Column index on the sheet.
+     */
+    public int getTotalColumn(int sheet) {
+        return FIRST_TARGET_COLUMN + widths[sheet];
+    }
+
+    /**
+     * Method to return how many columns before the total column are summed into a Man's total.
+     * The Summary total only covers the Hours and Expenses columns, as those are the only paid columns.
+     *
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @return - Amount of columns.
+     */
+    public int getTotalWidth(int sheet) {
+        return sheet == SUMMARY ? widths[HOURS] + widths[EXPENSES] : widths[sheet];
+    }
+
+}
@@ -0,0 +1,464 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Exports the Summary, Hours and Expenses as CSV/TSV files, straight from the Man Directories.
+
+*/
+
+import ac.uk.zpq19yru.objects.Man;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class DelimitedOutputWriter {
+
+    private static final String[] SHEET_NAMES = new String[] { "Summary", "Hours", "Expenses" };
+    private static final String[] ROW_NAMES = new String[] { "Value", "Rate", "Pay" };
+    private static final double[] SCALES = new double[] { 1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6 };
+
+    private final char delimiter;
+    private final String extension;
+    private final int bufferSize;
+
+    /**
+     * Constructor to initialise a DelimitedOutputWriter.
+     *
+     * @param format - 'csv' for comma separated files, 'tsv' for tab separated files.
+     * @param bufferSize - Bytes written to each file at a time.
+     * @throws IllegalArgumentException - If the format is unknown, or the buffer is smaller than 1 KB.
+     */
+    public DelimitedOutputWriter(String format, int bufferSize) throws IllegalArgumentException {
+        switch (format.trim().toLowerCase()) {
+            case "csv":
+                this.delimiter = ',';
+                break;
+            case "tsv":
+                this.delimiter = '\t';
+                break;
+            default:
+                throw new IllegalArgumentException("Export format '" + format + "' must be 'csv' or 'tsv'!");
+        }
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("Export buffer must be at least 1 KB!");
+        }
+        this.extension = "." + format.trim().toLowerCase();
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Method to return the file a sheet is exported to, named after the Output File.
+     *
+     * @param outputFile - Output File, e.g. 'UKERLTD - Output.xlsx'.
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @return - File, e.g. 'UKERLTD - Output - Summary.csv'.
+     */
+    public File getFile(File outputFile, int sheet) {
+        String name = outputFile.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(outputFile.getAbsoluteFile().getParentFile(),
+                (dot > 0 ? name.substring(0, dot) : name) + " - " + SHEET_NAMES[sheet] + extension);
+    }
+
+    /**
+     * Method to return every file written by an export, including the temporary files.
+     *
+     * @param outputFile - Output File the exported files are named after.
+     * @return - Files, e.g. 'UKERLTD - Output - Summary.csv' and 'UKERLTD - Output - Summary.csv.tmp'.
+     */
+    public List<File> getFiles(File outputFile) {
+        List<File> files = new ArrayList<>();
+        for (int sheet = 0; sheet < SHEET_NAMES.length; sheet++) {
+            files.add(getFile(outputFile, sheet));
+            files.add(getTempFile(getFile(outputFile, sheet)));
+        }
+        return files;
+    }
+
+    /**
+     * Method to export the Summary, Hours and Expenses sheets, each to a file of its own.
+     * Each file starts with a header row (Last Name, First Name, Row, the sheet's columns, Total), followed by
+     * the Value, Rate and Pay rows of every Man, each named so every row stands on its own. The Pay row's Total
+     * is the same sum as the Output File's, there is no grand total row as a loader would take it for a Man.
+     * The files are written through a buffer each, in a single pass over the Men, and only replace the
+     * previous files once complete. Each value of a Man is formatted once, then copied to every file it is on.
+     *
+     * @param outputFile - Output File the exported files are named after.
+     * @param headers - Headers collected from the Timesheets.
+     * @param men - Men to export, in order, who must have been priced.
+     * @param plan - Columns written to each sheet.
+     * @return - Amount of bytes written over every file.
+     * @throws IOException - If a file cannot be written.
+     * @throws IllegalStateException - If a Man hasn't been priced, the previous files are kept.
+     */
+    public long write(File outputFile, Map<Integer, String> headers, Iterable<Man> men, ColumnPlan plan)
+            throws IOException, IllegalStateException {
+        int[] columns = plan.getColumns();
+        Fields fields = new Fields(columns.length);
+        File[] files = new File[SHEET_NAMES.length];
+        File[] temps = new File[files.length];
+        Output[] outputs = new Output[files.length];
+        ByteBuffer buffers = ByteBuffer.allocateDirect(bufferSize * outputs.length);
+        long bytes = 0;
+        boolean complete = false;
+        try {
+            for (int sheet = 0; sheet < outputs.length; sheet++) {
+                files[sheet] = getFile(outputFile, sheet);
+                temps[sheet] = getTempFile(files[sheet]);
+                buffers.limit((sheet + 1) * bufferSize).position(sheet * bufferSize);
+                outputs[sheet] = new Output(FileChannel.open(temps[sheet].toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), buffers.slice());
+                writeHeaders(outputs[sheet], sheet, headers, plan, fields);
+            }
+            for (Man man : men) {
+                fields.encode(man, columns);
+                for (int sheet = 0; sheet < outputs.length; sheet++) {
+                    for (int row = 0; row < ROW_NAMES.length; row++) {
+                        writeRow(outputs[sheet], sheet, row, fields, plan);
+                    }
+                }
+            }
+            for (Output output : outputs) {
+                bytes += output.finish();
+            }
+            complete = true;
+        } finally {
+            for (int sheet = 0; sheet < outputs.length; sheet++) {
+                if (outputs[sheet] != null) {
+                    outputs[sheet].close();
+                }
+                if (!complete && temps[sheet] != null) {
+                    Files.deleteIfExists(temps[sheet].toPath());
+                }
+            }
+        }
+        for (int sheet = 0; sheet < files.length; sheet++) {
+            Files.move(temps[sheet].toPath(), files[sheet].toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return bytes;
+    }
+
+    /**
+     * Helper method to get the file an export is written to before it replaces the exported file.
+     *
+     * @param file - Exported file.
+     * @return - Temporary File, e.g. 'UKERLTD - Output - Summary.csv.tmp'.
+     */
+    private static File getTempFile(File file) {
+        return new File(file.getParentFile(), file.getName() + ".tmp");
+    }
+
+    /**
+     * Helper method to write the header row of a sheet.
+     *
+     * @param output - File of the sheet.
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @param headers - Headers collected from the Timesheets.
+     * @param plan - Columns written to each sheet.
+     * @param fields - Fields to encode the headers with.
+     * @throws IOException - If the buffer cannot be flushed.
+     */
+    private void writeHeaders(Output output, int sheet, Map<Integer, String> headers, ColumnPlan plan,
+                              Fields fields) throws IOException {
+        fields.clear();
+        fields.text("Last Name");
+        fields.delimit();
+        fields.text("First Name");
+        fields.delimit();
+        fields.text("Row");
+        for (int column : plan.getColumns()) {
+            if (plan.contains(sheet, column)) {
+                fields.delimit();
+                fields.text(headers.get(column));
+            }
+        }
+        fields.delimit();
+        fields.text("Total");
+        output.put(fields.bytes, 0, fields.length);
+        output.endRow();
+    }
+
+    /**
+     * Helper method to write a single Value, Rate or Pay row of a Man, from the fields encoded for the Man.
+     *
+     * @param output - File of the sheet.
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @param row - 0 = Value, 1 = Rate, 2 = Pay.
+     * @param fields - Fields of the Man.
+     * @param plan - Columns written to each sheet.
+     * @throws IOException - If the buffer cannot be flushed.
+     */
+    private void writeRow(Output output, int sheet, int row, Fields fields, ColumnPlan plan) throws IOException {
+        int[] columns = plan.getColumns();
+        int firstTotalled = plan.getWidth(sheet) - plan.getTotalWidth(sheet);
+        int written = 0;
+        double total = 0;
+        output.put(fields.bytes, 0, fields.rowStarts[0]);
+        output.put(fields.bytes, fields.rowStarts[row], fields.starts[row][0] - fields.rowStarts[row]);
+        for (int i = 0; i < columns.length; i++) {
+            if (plan.contains(sheet, columns[i])) {
+                output.put(fields.bytes, fields.starts[row][i], fields.starts[row][i + 1] - fields.starts[row][i]);
+                if (written++ >= firstTotalled) {
+                    total += fields.values[row][i];
+                }
+            }
+        }
+        output.put((byte) delimiter);
+        if (row == ROW_NAMES.length - 1) {
+            int mark = fields.length;
+            fields.number(total);
+            output.put(fields.bytes, mark, fields.length - mark);
+            fields.length = mark;
+        }
+        output.endRow();
+    }
+
+    /**
+     * The fields of a single Man (or header row) encoded as bytes, so each is formatted once for every file.
+     * A Man's name fields come first, then for each row its name and each value preceded by the delimiter.
+     */
+    private class Fields {
+
+        private byte[] bytes = new byte[1024];
+        private int length;
+        private final double[][] values;
+        private final int[] rowStarts = new int[ROW_NAMES.length];
+        private final int[][] starts;
+        private final byte[] digits = new byte[20];
+
+        private Fields(int columns) {
+            this.values = new double[ROW_NAMES.length][columns];
+            this.starts = new int[ROW_NAMES.length][columns + 1];
+        }
+
+        /**
+         * Method to encode the names and the Value, Rate and Pay of every column of a Man.
+         * 'starts[row][i]' is where the delimiter before column 'i' begins, 'starts[row][columns]' is the end.
+         *
+         * @param man - Man to encode, who must have been priced.
+         * @param columns - Source columns of the plan.
+         * @throws IllegalStateException - If the Man hasn't been priced.
+         */
+        private void encode(Man man, int[] columns) throws IllegalStateException {
+            for (int i = 0; i < columns.length; i++) {
+                values[0][i] = man.hasData(columns[i]) ? man.getData(columns[i]) : 0;
+                values[1][i] = man.getRate(columns[i]);
+                values[2][i] = man.getPay(columns[i]);
+            }
+            clear();
+            text(man.getLast());
+            delimit();
+            text(man.getFirst());
+            delimit();
+            for (int row = 0; row < ROW_NAMES.length; row++) {
+                rowStarts[row] = length;
+                text(ROW_NAMES[row]);
+                for (int i = 0; i < columns.length; i++) {
+                    starts[row][i] = length;
+                    delimit();
+                    number(values[row][i]);
+                }
+                starts[row][columns.length] = length;
+            }
+        }
+
+        private void clear() {
+            length = 0;
+        }
+
+        private void delimit() {
+            require(1);
+            bytes[length++] = (byte) delimiter;
+        }
+
+        /**
+         * Method to encode a text field, quoted when it contains the delimiter, a quote or a line break (CSV),
+         * or with tabs and line breaks replaced by spaces (TSV).
+         *
+         * @param text - Text, null for an empty field.
+         */
+        private void text(String text) {
+            if (text == null) {
+                return;
+            }
+            boolean ascii = true, special = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == delimiter || c == '\r' || c == '\n' || (c == '"' && delimiter != '\t')) {
+                    special = true;
+                } else if (c < ' ' || c >= 0x7F) {
+                    ascii = false;
+                }
+            }
+            if (ascii && !special) {
+                require(text.length());
+                for (int i = 0; i < text.length(); i++) {
+                    bytes[length++] = (byte) text.charAt(i);
+                }
+                return;
+            }
+            if (special && delimiter == '\t') {
+                text = text.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+            } else if (special) {
+                text = "\"" + text.replace("\"", "\"\"") + "\"";
+            }
+            byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+            require(encoded.length);
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            length += encoded.length;
+        }
+
+        /**
+         * Method to encode a number field, which reads back as exactly the same double.
+         * Numbers with up to 6 decimal places are written without formatting a String, whole numbers are written
+         * without a decimal point, and no number is written in scientific notation.
+         *
+         * @param value - Number.
+         */
+        private void number(double value) {
+            double magnitude = Math.abs(value);
+            if (magnitude < 1e9) {
+                for (int scale = 0; scale < SCALES.length; scale++) {
+                    double scaled = Math.rint(value * SCALES[scale]);
+                    if (scaled / SCALES[scale] == value) { // Division of exact numbers, as a parser would round.
+                        fixed((long) scaled, scale);
+                        return;
+                    }
+                }
+            } else if (magnitude < 1e15 && value == Math.rint(value)) {
+                fixed((long) value, 0);
+                return;
+            }
+            if (Double.isNaN(value) || Double.isInfinite(value) || (magnitude >= 1e-3 && magnitude < 1e7)) {
+                text(Double.toString(value));
+            } else {
+                text(BigDecimal.valueOf(value).stripTrailingZeros().toPlainString());
+            }
+        }
+
+        /**
+         * Helper method to encode a number given as its digits and the amount of them after the decimal point.
+         *
+         * @param unscaled - Digits, e.g. 1234 for 12.34.
+         * @param scale - Digits after the decimal point, e.g. 2 for 12.34.
+         */
+        private void fixed(long unscaled, int scale) {
+            require(digits.length + 2);
+            if (unscaled < 0) {
+                bytes[length++] = '-';
+            }
+            long remaining = Math.abs(unscaled);
+            int count = 0;
+            do {
+                digits[digits.length - ++count] = (byte) ('0' + remaining % 10);
+                remaining /= 10;
+            } while (remaining != 0 || count <= scale);
+            int whole = count - scale;
+            System.arraycopy(digits, digits.length - count, bytes, length, whole);
+            length += whole;
+            if (scale > 0) {
+                bytes[length++] = '.';
+                System.arraycopy(digits, digits.length - scale, bytes, length, scale);
+                length += scale;
+            }
+        }
+
+        private void require(int more) {
+            if (length + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+            }
+        }
+
+    }
+
+    /**
+     * A single exported file, written through its own slice of a direct buffer.
+     */
+    private static class Output implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long written;
+
+        private Output(FileChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private void put(byte value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put(value);
+        }
+
+        /**
+         * Method to write bytes, anything larger than the buffer is written straight to the file.
+         *
+         * @param source - Bytes.
+         * @param offset - Index of the first byte.
+         * @param count - Amount of bytes.
+         * @throws IOException - If the buffer cannot be written.
+         */
+        private void put(byte[] source, int offset, int count) throws IOException {
+            if (buffer.remaining() < count) {
+                flush();
+                if (count > buffer.capacity()) {
+                    ByteBuffer wrapped = ByteBuffer.wrap(source, offset, count);
+                    while (wrapped.hasRemaining()) {
+                        written += channel.write(wrapped);
+                    }
+                    return;
+                }
+            }
+            buffer.put(source, offset, count);
+        }
+
+        private void endRow() throws IOException {
+            put((byte) '\r');
+            put((byte) '\n');
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Method to write whatever is left in the buffer.
+         *
+         * @return - Amount of bytes written to the file.
+         * @throws IOException - If the buffer cannot be written.
+         */
+        private long finish() throws IOException {
+            flush();
+            return written;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,305 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Scans folders for Timesheets, listing sub-folders in parallel whilst reporting files in order.
+
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class DocumentScanner {
+
+    private final List<PathMatcher> includes = new ArrayList<>();
+    private final List<PathMatcher> excludes = new ArrayList<>();
+    private final List<Boolean> includesByName = new ArrayList<>();
+    private final List<Boolean> excludesByName = new ArrayList<>();
+    private final int maxDepth;
+    private final int threads;
+
+    /**
+     * Constructor to initialise a DocumentScanner.
+     * A pattern containing '/' is matched against the path relative to the folder scanned,
+     * any other pattern is matched against the name of the file or folder.
+     *
+     * @param includes - Glob patterns a file must match to be relevant, empty for any '.xlsx' file.
+     * @param excludes - Glob patterns of files and folders to skip, a skipped folder isn't scanned at all.
+     * @param maxDepth - Maximum depth of folders scanned below the folder given, 0 = none, -1 = unlimited.
+     * @param threads - Amount of threads used to list folders, 0 or less for one per processor.
+     * @throws IllegalArgumentException - If a pattern isn't a valid glob.
+     */
+    public DocumentScanner(List<String> includes, List<String> excludes, int maxDepth, int threads)
+            throws IllegalArgumentException {
+        for (String pattern : includes) {
+            this.includes.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            this.includesByName.add(!pattern.contains("/"));
+        }
+        for (String pattern : excludes) {
+            this.excludes.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            this.excludesByName.add(!pattern.contains("/"));
+        }
+        this.maxDepth = maxDepth;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Method to scan a folder for relevant files.
+     * Folders are listed in parallel, but files are handed to the consumer on the calling thread in a fixed
+     * order (sorted by name, each folder's contents in place of the folder), so every scan of the same
+     * folder produces the same order. Links to files and folders are followed, a link back to a folder being
+     * scanned is reported and skipped.
+     *
+     * @param root - Folder to scan within.
+     * @param consumer - Consumer of each relevant File.
+     * @return - { FilesFound, RelevantFilesFound }, every file and folder seen counts towards FilesFound.
+     */
+    public int[] scan(File root, Consumer<File> consumer) {
+        AtomicInteger found = new AtomicInteger();
+        int relevant = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ScannerThreadFactory());
+        try {
+            Path rootPath = root.toPath();
+            Set<Object> ancestors = new HashSet<>();
+            try {
+                ancestors.add(getKey(rootPath, Files.readAttributes(rootPath, BasicFileAttributes.class)));
+            } catch (IOException ignored) {} // Not a folder, so the listing below fails and reports it.
+            Listing listing = list(rootPath, rootPath, 0, ancestors, found, pool).join();
+            if (listing == null) {
+                System.out.println("No Files have been found in '" + root.getPath() + "'.");
+                return new int[] { 0, 0 };
+            }
+            relevant = emit(root.getName(), listing, consumer);
+        } finally {
+            pool.shutdownNow();
+        }
+        return new int[] { found.get(), relevant };
+    }
+
+    /**
+     * Helper method to hand every relevant file within a listing to the consumer, in order.
+     *
+     * @param name - Name of the folder listed.
+     * @param listing - Listing of the folder.
+     * @param consumer - Consumer of each relevant File.
+     * @return - Amount of relevant files.
+     */
+    private int emit(String name, Listing listing, Consumer<File> consumer) {
+        System.out.println("Scanning '" + name + "' for any XLSX files.");
+        int relevant = 0;
+        for (Entry entry : listing.entries) {
+            if (entry.folder == null) {
+                relevant++;
+                consumer.accept(entry.path.toFile());
+                continue;
+            }
+            Listing folder;
+            try {
+                folder = entry.folder.join();
+            } catch (CompletionException ex) {
+                folder = null;
+            }
+            if (folder == null) {
+                System.err.println("Failed to scan '" + entry.path + "', it has been skipped.");
+                continue;
+            }
+            relevant += emit(entry.path.getFileName().toString(), folder, consumer);
+        }
+        return relevant;
+    }
+
+    /**
+     * Helper method to list a folder on the pool, listing its sub-folders is started as soon as it completes.
+     *
+     * @param root - Folder being scanned.
+     * @param folder - Folder to list.
+     * @param depth - Depth of the folder below the root.
+     * @param ancestors - Keys of the folder and every folder above it, see 'getKey()'.
+     * @param found - Count of every file and folder seen.
+     * @param pool - Pool to list on.
+     * @return - Listing of the folder, which completes with null if the folder cannot be listed.
+     */
+    private CompletableFuture<Listing> list(Path root, Path folder, int depth, Set<Object> ancestors,
+                                            AtomicInteger found, ExecutorService pool) {
+        return CompletableFuture.supplyAsync(() -> {
+            Listing listing = new Listing();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                for (Path path : stream) {
+                    found.incrementAndGet();
+                    BasicFileAttributes attributes;
+                    Object key;
+                    try {
+                        attributes = Files.readAttributes(path, BasicFileAttributes.class); // Follows links.
+                        key = attributes.isDirectory() ? getKey(path, attributes) : null;
+                    } catch (IOException ex) {
+                        continue; // Removed, unreadable or a broken link since being listed.
+                    }
+                    Path relative = root.relativize(path);
+                    if (matches(excludes, excludesByName, relative)) {
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        if (maxDepth < 0 || depth < maxDepth) {
+                            Set<Object> below = new HashSet<>(ancestors);
+                            if (!below.add(key)) {
+                                System.err.println("'" + path + "' links back to a folder being scanned, "
+                                        + "it has been skipped.");
+                                continue;
+                            }
+                            listing.entries.add(new Entry(path, list(root, path, depth + 1, below, found, pool)));
+                        }
+                    } else if (attributes.isRegularFile() && isRelevant(relative)) {
+                        listing.entries.add(new Entry(path, null));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException ex) {
+                return null;
+            }
+            listing.entries.sort(Comparator.comparing(entry -> entry.path.getFileName().toString()));
+            return listing;
+        }, pool);
+    }
+
+    /**
+     * Helper method to identify a folder, whichever links it was reached through.
+     *
+     * @param path - Folder.
+     * @param attributes - Attributes of the folder, links followed.
+     * @return - File key of the folder, or its real path where the file system doesn't provide file keys.
+     * @throws IOException - If the real path cannot be resolved.
+     */
+    private static Object getKey(Path path, BasicFileAttributes attributes) throws IOException {
+        return attributes.fileKey() != null ? attributes.fileKey() : path.toRealPath();
+    }
+
+    /**
+     * Helper method to determine if a file should be collected.
+     *
+     * @param relative - Path of the file relative to the folder scanned.
+     * @return - true = relevant, false = not relevant.
+     */
+    private boolean isRelevant(Path relative) {
+        if (includes.isEmpty()) {
+            return relative.getFileName().toString().toLowerCase().endsWith(".xlsx");
+        }
+        return matches(includes, includesByName, relative);
+    }
+
+    /**
+     * Helper method to determine if a path matches any of the patterns given.
+     *
+     * @param matchers - Patterns to test.
+     * @param byName - For each pattern, true = test the name only, false = test the relative path.
+     * @param relative - Path relative to the folder scanned.
+     * @return - true = matches, false = doesn't match.
+     */
+    private boolean matches(List<PathMatcher> matchers, List<Boolean> byName, Path relative) {
+        for (int i = 0; i < matchers.size(); i++) {
+            if (matchers.get(i).matches(byName.get(i) ? relative.getFileName() : relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to split a comma separated list of patterns, as found within the properties file.
+     *
+     * @param patterns - Comma separated patterns, may be null or empty.
+     * @return - List of patterns.
+     */
+    public static List<String> splitPatterns(String patterns) {
+        if (patterns == null || patterns.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> split = new ArrayList<>();
+        for (String pattern : patterns.split(",")) {
+            if (!pattern.trim().isEmpty()) {
+                split.add(pattern.trim());
+            }
+        }
+        return split;
+    }
+
+    /**
+     * Method to escape a file name so that it can be used as a pattern which only matches itself.
+     *
+     * @param name - Name of a file, e.g. 'UKERLTD - Output.xlsx'.
+     * @return - Pattern matching the name exactly.
+     */
+    public static String escapePattern(String name) {
+        StringBuilder escaped = new StringBuilder(name.length());
+        for (char c : name.toCharArray()) {
+            if ("*?[]{}\\,".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * The relevant files and sub-folders of a folder.
+     */
+    private static class Listing {
+
+        private final List<Entry> entries = new ArrayList<>();
+
+    }
+
+    /**
+     * A relevant file (no folder listing) or a sub-folder (with the listing in progress).
+     */
+    private static class Entry {
+
+        private final Path path;
+        private final CompletableFuture<Listing> folder;
+
+        private Entry(Path path, CompletableFuture<Listing> folder) {
+            this.path = path;
+            this.folder = folder;
+        }
+
+    }
+
+    /**
+     * Creates daemon threads, so an abandoned scan never keeps the program alive.
+     */
+    private static class ScannerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Collator-Scanner-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Builds the SUM formulas of the Output Document, without regular expressions or repeated lookups.
+
+*/
+
+public class FormulaBuilder {
+
+    public static final int MAX_COLUMNS = 16384; // A to XFD, the most columns an XLSX sheet can hold.
+
+    private static final String[] COLUMN_LETTERS = new String[MAX_COLUMNS];
+
+    static {
+        char[] letters = new char[3];
+        for (int column = 0; column < MAX_COLUMNS; column++) {
+            int position = letters.length, remaining = column + 1;
+            while (remaining > 0) {
+                remaining--;
+                letters[--position] = (char) ('A' + remaining % 26);
+                remaining /= 26;
+            }
+            COLUMN_LETTERS[column] = new String(letters, position, letters.length - position);
+        }
+    }
+
+    private final StringBuilder builder = new StringBuilder(32);
+
+    /**
+     * Method to return the letters of a column, e.g. 0 = A, 25 = Z, 26 = AA, 16383 = XFD.
+     *
+     * @param column - Column index, from 0.
+     * @return - Column letters, shared rather than created on each call.
+     * @throws IllegalArgumentException - If the column is outside of an XLSX sheet.
+     */
+    public static String getColumnLetters(int column) throws IllegalArgumentException {
+        if (column < 0 || column >= MAX_COLUMNS) {
+            throw new IllegalArgumentException("Column '" + column + "' is outside of the sheet!");
+        }
+        return COLUMN_LETTERS[column];
+    }
+
+    /**
+     * Method to build a SUM over a range of cells.
+     *
+     * @param firstColumn - First column index, from 0.
+     * @param firstRow - First row number, from 1.
+     * @param lastColumn - Last column index, from 0.
+     * @param lastRow - Last row number, from 1.
+     * @return - SUM(A1:B2) (example)
+     */
+    public String sum(int firstColumn, int firstRow, int lastColumn, int lastRow) {
+        builder.setLength(0);
+        builder.append("SUM(").append(getColumnLetters(firstColumn)).append(firstRow).append(':')
+                .append(getColumnLetters(lastColumn)).append(lastRow).append(')');
+        return builder.toString();
+    }
+
+    /**
+     * Method to build the total of a Man's Pay row, summing the columns before it.
+     *
+     * @param column - Column of the total.
+     * @param row - Row index of the total, from 0.
+     * @param width - Amount of columns summed.
+     * @return - SUM of the 'width' cells before the total.
+     */
+    public String getRowTotal(int column, int row, int width) {
+        return sum(column - width, row + 1, column - 1, row + 1);
+    }
+
+    /**
+     * Method to build the grand total of a sheet, summing a column from the first Man's row to above it.
+     *
+     * @param column - Column of the grand total.
+     * @param row - Row index of the grand total, from 0.
+     * @return - SUM of the column, written from the grand total upwards as the collator always has.
+     */
+    public String getGrandTotal(int column, int row) {
+        return sum(column, row, column, 2);
+    }
+
+}
@@ -0,0 +1,143 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Writes the rows of the Summary, Hours and Expenses sheets in order, shared by both writers.
+
+*/
+
+import ac.uk.zpq19yru.objects.Man;
+import ac.uk.zpq19yru.objects.RowCursor;
+
+import java.util.Map;
+
+class OutputRowWriter {
+
+    private final Map<Integer, String> headers;
+    private final ColumnPlan plan;
+    private final FormulaBuilder formulas = new FormulaBuilder();
+    private final double[] values, rates, pays;
+
+    /**
+     * Constructor to initialise an OutputRowWriter.
+     *
+     * @param headers - Headers collected from the Timesheets.
+     * @param plan - Columns written to each sheet.
+     */
+    OutputRowWriter(Map<Integer, String> headers, ColumnPlan plan) {
+        this.headers = headers;
+        this.plan = plan;
+        int columns = plan.getColumns().length;
+        this.values = new double[columns];
+        this.rates = new double[columns];
+        this.pays = new double[columns];
+    }
+
+    /**
+     * Method to write every sheet in order, the header rows, each Man and the grand totals.
+     * A failure is reported rather than thrown, so whatever was written can still be saved.
+     *
+     * @param cursors - Cursor of each sheet, indexed by SUMMARY, HOURS and EXPENSES.
+     * @param men - Men to write out, in order, who must have been priced.
+     * @return - true = every page was created, false = the pages are incomplete.
+     */
+    boolean writeSheets(RowCursor[] cursors, Iterable<Man> men) {
+        int index = 1;
+        try {
+            writeHeaders(cursors);
+            for (Man man : men) {
+                index = writeMan(cursors, index, man);
+            }
+            writeTotals(cursors, index);
+        } catch (Exception ex) {
+            System.err.println("Failed to create pages.");
+            System.err.println(ex.getClass().getSimpleName() + " has been encountered!");
+            if (ex.getMessage() != null) {
+                System.err.println(ex.getMessage());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method to write the header row of every sheet.
+     *
+     * @param cursors - Cursor of each sheet, indexed by SUMMARY, HOURS and EXPENSES.
+     */
+    void writeHeaders(RowCursor[] cursors) {
+        int[] columns = plan.getColumns();
+        for (int sheet = 0; sheet < cursors.length; sheet++) {
+            RowCursor cursor = cursors[sheet].open(0).write("Last Name").write("First Name");
+            for (int column : columns) {
+                if (plan.contains(sheet, column)) {
+                    cursor.moveTo(plan.getTarget(sheet, column)).write(headers.get(column));
+                }
+            }
+            cursor.close();
+        }
+    }
+
+    /**
+     * Method to write the Value, Rate and Pay rows of a Man on every sheet, with a SUM at the end of each Pay row.
+     *
+     * @param cursors - Cursor of each sheet, indexed by SUMMARY, HOURS and EXPENSES.
+     * @param index - Index of the Value row.
+     * @param man - Man to write, who must have been priced.
+     * @return - Index of the row after the Pay row.
+     */
+    int writeMan(RowCursor[] cursors, int index, Man man) {
+        int[] columns = plan.getColumns();
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = man.hasData(columns[i]) ? man.getData(columns[i]) : 0;
+            rates[i] = man.getRate(columns[i]);
+            pays[i] = man.getPay(columns[i]);
+        }
+        for (int sheet = 0; sheet < cursors.length; sheet++) {
+            RowCursor cursor = cursors[sheet];
+            writeValues(cursor.open(index).write(man.getLast()).write(man.getFirst()), sheet, values);
+            writeValues(cursor.open(index + 1), sheet, rates);
+            writeValues(cursor.open(index + 2), sheet, pays);
+            int total = plan.getTotalColumn(sheet);
+            cursor.moveTo(total).writeFormula(formulas.getRowTotal(total, index + 2, plan.getTotalWidth(sheet)));
+            cursor.close();
+        }
+        return index + 3;
+    }
+
+    /**
+     * Method to write the grand total underneath the last Man of every sheet.
+     *
+     * @param cursors - Cursor of each sheet, indexed by SUMMARY, HOURS and EXPENSES.
+     * @param index - Index of the row after the last Man.
+     */
+    void writeTotals(RowCursor[] cursors, int index) {
+        for (int sheet = 0; sheet < cursors.length; sheet++) {
+            int total = plan.getTotalColumn(sheet);
+            cursors[sheet].open(index).moveTo(total).writeFormula(formulas.getGrandTotal(total, index));
+            cursors[sheet].close();
+        }
+    }
+
+    /**
+     * Helper method to write a row of values, each at its column on the sheet.
+     *
+     * @param cursor - Cursor with the row open.
+     * @param sheet - SUMMARY, HOURS or EXPENSES.
+     * @param row - Value of each plan column.
+     */
+    private void writeValues(RowCursor cursor, int sheet, double[] row) {
+        int[] columns = plan.getColumns();
+        for (int i = 0; i < columns.length; i++) {
+            int target = plan.getTarget(sheet, columns[i]);
+            if (target >= 0) {
+                cursor.moveTo(target).write(row[i]);
+            }
+        }
+    }
+
+}
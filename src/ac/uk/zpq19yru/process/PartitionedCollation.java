@@ -0,0 +1,299 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Collates several partitions of Timesheets (pay weeks, sites) independently and in parallel.
+
+*/
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PartitionedCollation {
+
+    private final List<Partition> partitions = new ArrayList<>();
+    private final int parallelism;
+    private final boolean pipeline, streamingInput;
+    private final int window;
+
+    /**
+     * Constructor to initialise a PartitionedCollation.
+     *
+     * @param parallelism - Amount of partitions collected at once, each collator has threads of its own.
+     * @param pipeline - true = each partition is collected by a CollationPipeline, false = one phase at a time.
+     * @param streamingInput - true = stream each document, false = load every Workbook first (phases only).
+     * @param window - Maximum amount of documents in flight per pipeline, 0 for twice the thread count.
+     * @throws IllegalArgumentException - If the parallelism is less than 1.
+     */
+    public PartitionedCollation(int parallelism, boolean pipeline, boolean streamingInput, int window)
+            throws IllegalArgumentException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1!");
+        }
+        this.parallelism = parallelism;
+        this.pipeline = pipeline;
+        this.streamingInput = streamingInput;
+        this.window = window;
+    }
+
+    /**
+     * Method to add a partition, its collator must already have its Paygrades, scanner and Output File set.
+     *
+     * @param name - Name of the partition, e.g. 'Week 1'.
+     * @param collator - Collator the partition is collected into, not shared with any other partition.
+     * @param roots - Folders to scan for the partition's Timesheets, in order.
+     */
+    public void addPartition(String name, PayrollCollator collator, List<File> roots) {
+        partitions.add(new Partition(name, collator, roots));
+    }
+
+    /**
+     * Method to return every partition, in the order they were added.
+     *
+     * @return - Read-only list of partitions.
+     */
+    public List<Partition> getPartitions() {
+        return Collections.unmodifiableList(partitions);
+    }
+
+    /**
+     * Method to collect and price every partition, 'parallelism' partitions at a time.
+     * Each partition is collected exactly as a run over its own folders would be, so its Men and totals match.
+     *
+     * @return - { PartitionsCollected, Errors }, a partition without any collected documents isn't counted.
+     */
+    public int[] collect() {
+        int collected = 0, errors = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(partitions.size(), 1)));
+        try {
+            List<Future<int[]>> results = new ArrayList<>(partitions.size());
+            for (Partition partition : partitions) {
+                results.add(pool.submit(() -> collect(partition)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Partition partition = partitions.get(i);
+                try {
+                    partition.results = results.get(i).get();
+                } catch (ExecutionException ex) {
+                    PayrollCollator.reportFailure(ex, partition.name);
+                    partition.results = new int[] { 0, 0, 1 };
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    System.err.println("Interrupted whilst collecting partition '" + partition.name + "'!");
+                    break;
+                }
+                errors += partition.results[2];
+                if (partition.isCollected()) {
+                    collected++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new int[] { collected, errors };
+    }
+
+    /**
+     * Method to save each collected partition to its own Output File, 'parallelism' partitions at a time.
+     *
+     * @return - true = every collected partition was saved, false = an Output File is incomplete or wasn't saved.
+     */
+    public boolean outputSeparately() {
+        boolean saved = true;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(partitions.size(), 1)));
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(partitions.size());
+            for (Partition partition : partitions) {
+                results.add(partition.isCollected() ? pool.submit(partition.collator::outputData) : null);
+            }
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) == null) {
+                    continue;
+                }
+                String name = partitions.get(i).collator.getOutputFile().getName();
+                try {
+                    if (!results.get(i).get()) {
+                        saved = false;
+                        System.err.println("Failed to save data to '" + name + "'!");
+                    }
+                } catch (ExecutionException ex) {
+                    PayrollCollator.reportFailure(ex, name);
+                    saved = false;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return saved;
+    }
+
+    /**
+     * Method to save every collected partition to a single Output File, with a set of sheets per partition
+     * named after it, e.g. 'Week 1 Summary', 'Week 1 Hours' and 'Week 1 Expenses'.
+     * The sheets are written one partition at a time, as a Workbook cannot be written to by several threads.
+     *
+     * @param outputFile - File to save the Workbook to.
+     * @param writer - Streaming writer whose settings are used, null to build the Workbook in memory.
+     * @return - true = every page was created and saved, false = the Output File is incomplete or wasn't saved.
+     */
+    public boolean outputCombined(File outputFile, StreamingOutputWriter writer) {
+        Workbook workbook = writer != null ? writer.createWorkbook() : PayrollCollator.createOutputBook();
+        try {
+            boolean created = true;
+            for (Partition partition : partitions) {
+                if (!partition.isCollected()) {
+                    continue;
+                }
+                try {
+                    created &= partition.collator.writeSheets(workbook, partition.name + " ");
+                } catch (IllegalArgumentException ex) {
+                    created = false;
+                    System.err.println("Failed to create the sheets of partition '" + partition.name + "'.");
+                }
+            }
+            try (FileOutputStream outputStream = new FileOutputStream(outputFile)) {
+                workbook.write(outputStream);
+            }
+            return created;
+        } catch (IOException ex) {
+            System.err.println("Failed to save the workbook.");
+            return false;
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose(); // Deletes the temporary files backing the flushed rows.
+            }
+            try {
+                workbook.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Method to export each collected partition to CSV/TSV files of its own, if its collator exports.
+     *
+     * @param outputFile - Combined Output File, partitions are exported as e.g. 'UKERLTD - Output - Week 1 -
+     *                     Summary.csv', or null to name them after their own Output Files.
+     * @return - Amount of bytes written, or -1 if a partition's files weren't saved.
+     */
+    public long export(File outputFile) {
+        long bytes = 0;
+        for (Partition partition : partitions) {
+            if (!partition.isCollected() || partition.collator.getExportWriter() == null) {
+                continue;
+            }
+            File named = partition.collator.getOutputFile();
+            if (outputFile != null) {
+                String name = outputFile.getName();
+                named = new File(outputFile.getAbsoluteFile().getParentFile(),
+                        name.substring(0, name.lastIndexOf('.')) + " - " + partition.name + ".xlsx");
+            }
+            long written = partition.collator.exportData(named);
+            if (written < 0) {
+                return -1;
+            }
+            bytes += written;
+        }
+        return bytes;
+    }
+
+    /**
+     * Method to clear the data of every partition.
+     */
+    public void shutdown() {
+        for (Partition partition : partitions) {
+            partition.collator.shutdown();
+        }
+    }
+
+    /**
+     * Helper method to collect and price a single partition, run on a thread of its own.
+     *
+     * @param partition - Partition to collect.
+     * @return - { RelevantDocumentsFound, DocumentsCollected, Errors }.
+     */
+    private int[] collect(Partition partition) {
+        PayrollCollator collator = partition.collator;
+        int[] data;
+        if (pipeline) {
+            data = new CollationPipeline(collator, window).run(partition.roots);
+        } else {
+            for (File root : partition.roots) {
+                collator.collectDocuments(root);
+            }
+            if (streamingInput) {
+                data = collator.streamDocuments();
+            } else {
+                data = collator.convertDocuments();
+                collator.collectData();
+                collator.closeDocuments();
+            }
+        }
+        if (data[1] > 0) {
+            collator.setupPaygrades();
+        }
+        return data;
+    }
+
+    /**
+     * A single partition, its Timesheets are collected into a collator of its own.
+     */
+    public static class Partition {
+
+        private final String name;
+        private final PayrollCollator collator;
+        private final List<File> roots;
+        private int[] results = new int[3];
+
+        private Partition(String name, PayrollCollator collator, List<File> roots) {
+            this.name = name;
+            this.collator = collator;
+            this.roots = new ArrayList<>(roots);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PayrollCollator getCollator() {
+            return collator;
+        }
+
+        /**
+         * Method to return the results of collecting the partition.
+         *
+         * @return - { RelevantDocumentsFound, DocumentsCollected, Errors }, zeroes until collected.
+         */
+        public int[] getResults() {
+            return results.clone();
+        }
+
+        /**
+         * Method to determine if any documents were collected into the partition.
+         *
+         * @return - true = collected, false = nothing was collected so there is nothing to output.
+         */
+        public boolean isCollected() {
+            return results[1] > 0;
+        }
+
+    }
+
+}
@@ -12,33 +12,60 @@ package ac.uk.zpq19yru.process;
 
 import ac.uk.zpq19yru.Main;
 import ac.uk.zpq19yru.exceptions.CellNotFoundException;
-import ac.uk.zpq19yru.exceptions.ManNotFoundException;
+import ac.uk.zpq19yru.exceptions.SheetNotValidException;
 import ac.uk.zpq19yru.exceptions.WorkbookNotValidException;
+import ac.uk.zpq19yru.objects.ColumnProjection;
+import ac.uk.zpq19yru.objects.DocumentTotals;
 import ac.uk.zpq19yru.objects.ExcelDocument;
 import ac.uk.zpq19yru.objects.ExcelSheet;
 import ac.uk.zpq19yru.objects.Grade;
 import ac.uk.zpq19yru.objects.Man;
-import org.apache.commons.io.FilenameUtils;
+import ac.uk.zpq19yru.objects.RateTable;
+import ac.uk.zpq19yru.objects.RowCursor;
+import ac.uk.zpq19yru.objects.SheetFilter;
+import ac.uk.zpq19yru.objects.WorkerRegistry;
 import org.apache.poi.EmptyFileException;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class PayrollCollator {
 
+    static final List<Integer> HOURS_REQUIRED = Collections.unmodifiableList(Arrays.asList(12, 13, 17, 32, 37));
+    static final List<Integer> EXPENSES_REQUIRED = Collections.unmodifiableList(Arrays.asList(15, 27));
+
     private int documentsFound = 0, relevantDocumentsFound = 0;
     private final ArrayList<File> relevantFiles = new ArrayList<>();
-    private final ArrayList<ExcelDocument> documents = new ArrayList<>();
-    private final ArrayList<Man> men = new ArrayList<>();
+    private final ArrayList<ConvertedDocument> documents = new ArrayList<>();
+    private final WorkerRegistry men = new WorkerRegistry();
     private final ArrayList<Grade> grades = new ArrayList<>();
+    private RateTable rateTable; // Compiled from 'grades' when first needed, until the grades change.
     private File outputFile;
-    private XSSFWorkbook outputBook = new XSSFWorkbook();
     private ExcelDocument document;
     private boolean savedHeaders;
     private HashMap<Integer, String> headers = new HashMap<>();
+    private StreamingOutputWriter outputWriter;
+    private DelimitedOutputWriter exportWriter;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean streamingInput = true;
+    private AggregateCache cache;
+    private DocumentScanner scanner;
+    private SheetFilter sheetFilter = SheetFilter.ALL;
+    private ColumnProjection projection = ColumnProjection.forValueColumns(Main.invalid);
+    private long sheetsCollected, rowsCollected, cellsCollected;
 
     /**
      * Method to return data collected from the initial scan.
@@ -55,168 +82,615 @@ public class PayrollCollator {
      * @param file - Folder to scan within.
      */
     public void collectDocuments(File file) {
-        System.out.println("Scanning '" + file.getName() + "' for any XLSX files.");
-        if (file.listFiles() == null) {
-            System.out.println("No Files have been found in the current directory.");
-            documentsFound = 0;
-            relevantDocumentsFound = 0;
-            return;
-        }
-        for (File subFile : Objects.requireNonNull(file.listFiles())) {
-            documentsFound++;
-            if (subFile.isDirectory()) {
-                collectDocuments(subFile);
-                continue;
-            }
-            String extension = FilenameUtils.getExtension(subFile.getName());
-            if (extension.equalsIgnoreCase("xlsx")) {
-                relevantDocumentsFound++;
-                relevantFiles.add(subFile);
-            }
+        scanDocuments(file, relevantFiles::add);
+    }
+
+    /**
+     * Method to recursively scan a folder, handing every XLSX File found to a consumer.
+     *
+     * @param file - Folder to scan within.
+     * @param consumer - Consumer of each relevant File, called on the scanning thread in a fixed order.
+     */
+    void scanDocuments(File file, Consumer<File> consumer) {
+        DocumentScanner documentScanner = scanner;
+        if (documentScanner == null) {
+            documentScanner = new DocumentScanner(Collections.emptyList(), Collections.emptyList(), -1, threads);
         }
+        int[] found = documentScanner.scan(file, consumer);
+        documentsFound += found[0];
+        relevantDocumentsFound += found[1];
+    }
+
+    /**
+     * Method to set the scanner used to find documents.
+     *
+     * @param scanner - Scanner with the desired patterns and depth, null to scan for every XLSX File.
+     */
+    public void setScanner(DocumentScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    /**
+     * Method to set the amount of threads used to convert documents.
+     *
+     * @param threads - Amount of threads, 0 or less to use one per available processor.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Method to return the amount of threads used to read documents.
+     *
+     * @return - Thread count.
+     */
+    int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Method to set how documents are read when they are collected one file at a time.
+     *
+     * @param streamingInput - true = stream rows from each document, false = build a Workbook for each document.
+     */
+    public void setStreamingInput(boolean streamingInput) {
+        this.streamingInput = streamingInput;
+    }
+
+    /**
+     * Method to set which sheets of each document are read, by either reader.
+     * Only the streaming reader skips parsing the rejected sheets, a Workbook parses every sheet when opened.
+     *
+     * @param sheetFilter - Rules deciding which sheets are read, SheetFilter.ALL to read every sheet.
+     */
+    public void setSheetFilter(SheetFilter sheetFilter) {
+        this.sheetFilter = sheetFilter;
+    }
+
+    /**
+     * Method to set which columns of each document are read, by either reader.
+     * Cells outside of the projection are never converted or collected, so only wanted columns reach the Men.
+     *
+     * @param projection - Columns to read, by default the names, grade and every column not in 'Main.invalid'.
+     */
+    public void setProjection(ColumnProjection projection) {
+        this.projection = projection;
     }
 
     /**
      * Method to convert all documents into ExcelDocument equivalents.
+     * Documents are parsed in parallel, but are stored (and reported) in the order they were found.
+     * If a cache is set, unchanged documents are taken from the cache rather than converted, but are still counted
+     * as converted.
      *
      * @return - { RelevantDocumentsFound, DocumentsConverted, Errors }.
      */
     public int[] convertDocuments() {
         int documentsConverted = 0, errorsEncountered = 0;
-        for (File relevantFile : relevantFiles) {
-            InputStream stream;
-            try {
-                stream = new FileInputStream(relevantFile);
-                XSSFWorkbook workbook = new XSSFWorkbook(stream);
-                ExcelDocument excelDocument = new ExcelDocument(workbook, relevantFile.getName());
-                documents.add(excelDocument);
-                documentsConverted++;
-            } catch (EmptyFileException ignored) {
-            } catch (IOException | WorkbookNotValidException ex) {
-                System.err.println(ex.getClass().getSimpleName() + " encountered for file '" + relevantFile.getName() + "'!");
-                if (ex.getMessage() != null) {
-                    System.err.println("Message Provided: " + ex.getMessage());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(relevantFiles.size(), 1)));
+        try {
+            List<Future<ConvertedDocument>> conversions = new ArrayList<>(relevantFiles.size());
+            for (File relevantFile : relevantFiles) {
+                conversions.add(pool.submit(() -> convertOrLookUp(relevantFile)));
+            }
+            for (int i = 0; i < conversions.size(); i++) {
+                File relevantFile = relevantFiles.get(i);
+                try {
+                    documents.add(conversions.get(i).get());
+                    documentsConverted++;
+                } catch (ExecutionException ex) {
+                    if (reportFailure(ex, relevantFile.getName())) {
+                        errorsEncountered++;
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    System.err.println("Interrupted whilst converting '" + relevantFile.getName() + "'!");
+                    errorsEncountered += conversions.size() - i;
+                    break;
                 }
-                errorsEncountered++;
             }
+        } finally {
+            pool.shutdownNow();
         }
         return new int[] { relevantDocumentsFound, documentsConverted, errorsEncountered };
     }
 
+    /**
+     * Helper method to take the totals of a document from the cache, or to convert it if it isn't cached.
+     *
+     * @param relevantFile - XLSX File to convert.
+     * @return - Converted document, or its cached totals.
+     * @throws Exception - Any Exception encountered whilst converting the document.
+     */
+    private ConvertedDocument convertOrLookUp(File relevantFile) throws Exception {
+        AggregateCache.Stamp stamp = cache == null ? null : cache.stamp(relevantFile);
+        DocumentTotals totals = stamp == null ? null : cache.get(stamp);
+        if (totals != null) {
+            return new ConvertedDocument(null, null, totals);
+        }
+        return new ConvertedDocument(convertDocument(relevantFile), stamp, null);
+    }
+
+    /**
+     * Helper method to convert a single document into its ExcelDocument equivalent.
+     * The file is opened as a read-only package, so parts are inflated from the file as they are read rather than
+     * the whole zip being buffered in memory, the file stays open until the document is closed.
+     *
+     * @param relevantFile - XLSX File to convert.
+     * @return - ExcelDocument bridge.
+     * @throws IOException - If the file cannot be read.
+     * @throws InvalidFormatException - If the file isn't a valid XLSX package.
+     * @throws WorkbookNotValidException - If the Workbook or any of its sheets aren't valid.
+     */
+    private ExcelDocument convertDocument(File relevantFile)
+            throws IOException, InvalidFormatException, WorkbookNotValidException {
+        OPCPackage pkg = OPCPackage.open(relevantFile, PackageAccess.READ);
+        try {
+            return new ExcelDocument(new XSSFWorkbook(pkg), relevantFile.getName(), sheetFilter);
+        } catch (IOException | WorkbookNotValidException | RuntimeException ex) {
+            pkg.revert();
+            throw ex;
+        }
+    }
+
+    /**
+     * Method to close every converted document, releasing their files.
+     * Documents are no longer needed once 'collectData()' has merged them into the Man Directories.
+     */
+    public void closeDocuments() {
+        for (ConvertedDocument converted : documents) {
+            if (converted.document == null) {
+                continue;
+            }
+            try {
+                converted.document.close();
+            } catch (IOException ex) {
+                System.err.println("Failed to close '" + converted.getName() + "'.");
+            }
+        }
+        documents.clear();
+    }
+
+    /**
+     * Method to stream all documents directly into the Man Directories, without building a Workbook for each.
+     * This is the alternative to calling 'convertDocuments()' followed by 'collectData()'.
+     * Documents are streamed in parallel and merged in the order they were found, unchanged documents are
+     * taken from the cache if one is set.
+     *
+     * @return - { RelevantDocumentsFound, DocumentsStreamed, Errors }.
+     */
+    public int[] streamDocuments() {
+        int[] results = collectTotals(relevantFiles, File::getName, this::collectFile,
+                (file, totals) -> mergeTotals(totals));
+        return new int[] { relevantDocumentsFound, results[0], results[1] };
+    }
+
+    /**
+     * Method to read documents into their totals without merging them, so they can be kept and merged later by
+     * 'recollect()'. Documents are read in parallel, unchanged documents are taken from the cache if one is set.
+     *
+     * @param files - XLSX Files to read.
+     * @param read - Map the totals of each document read are put into, in the order of 'files'.
+     * @return - { DocumentsRead, Errors }, documents which couldn't be read are reported and left out of 'read'.
+     */
+    public int[] readDocuments(List<File> files, Map<File, DocumentTotals> read) {
+        return collectTotals(files, File::getName, this::collectFile, read::put);
+    }
+
+    /**
+     * Method to return how much of the converted documents is held in memory.
+     * Sheets are only copied into memory once collected, so cells are counted for the sheets used so far.
+     * Documents taken from the cache aren't converted, so aren't counted.
+     *
+     * @return - { Sheets, Cells }
+     */
+    public long[] getConvertedStatistics() {
+        long sheets = 0, cells = 0;
+        for (ConvertedDocument converted : documents) {
+            if (converted.document != null) {
+                sheets += converted.document.getSheetCount();
+                cells += converted.document.getLoadedCells();
+            }
+        }
+        return new long[] { sheets, cells };
+    }
+
+    /**
+     * Method to return how much has been read from documents and collected into the Man Directories,
+     * documents taken from the cache aren't read so aren't counted.
+     *
+     * @return - { Sheets, Rows, Cells }
+     */
+    public long[] getCollectedStatistics() {
+        return new long[] { sheetsCollected, rowsCollected, cellsCollected };
+    }
+
+    /**
+     * Method to add a document which has already been converted, it is collected by 'collectData()'
+     * after any documents converted by 'convertDocuments()'.
+     *
+     * @param document - Document to add.
+     */
+    public void addDocument(ExcelDocument document) {
+        documents.add(new ConvertedDocument(document, null, null));
+    }
+
     /**
      * Method to collect the data from the ExcelDocuments and their ExcelSheets.
+     * Documents are scanned in parallel and merged in the order they were converted, documents taken from the
+     * cache by 'convertDocuments()' are merged in their place and the others are added to the cache once scanned.
      */
     public void collectData() {
-        for (ExcelDocument document : documents) {
-            for (int index = 0; index < document.getSheetCount(); index++) {
-                ExcelSheet sheet = document.getSheet(index);
-                System.out.println("Scanning through sheet '" + sheet.getName()
-                        + "' of workbook '" + document.getWorkBookName() + "'!");
-
-                if (!this.savedHeaders) {
-                    int row = 0;
-                    int maxCols = sheet.getMaxColumns(row);
-                    for (int i = 0; i < maxCols; i++) {
-                        try {
-                            String value = sheet.getCell(row, i).getStringCellValue();
-                            headers.put(i, value);
-                        } catch (CellNotFoundException e) {
-                            break;
-                        }
+        collectTotals(documents, ConvertedDocument::getName, this::collectConverted,
+                (document, totals) -> mergeTotals(totals));
+    }
+
+    /**
+     * Helper method to total a converted document, or to return its totals if they were taken from the cache.
+     *
+     * @param converted - Converted document.
+     * @return - Totals of the document.
+     * @throws Exception - Any Exception encountered whilst scanning the document, or caching its totals.
+     */
+    private DocumentTotals collectConverted(ConvertedDocument converted) throws Exception {
+        if (converted.totals != null) {
+            return converted.totals;
+        }
+        DocumentTotals totals = collectDocument(converted.document);
+        if (converted.stamp != null) {
+            cache.put(converted.stamp, totals);
+        }
+        return totals;
+    }
+
+    /**
+     * Helper method to collect the totals of many documents in parallel and hand them to a merger.
+     * Each document is totalled by a single thread, the totals are then merged on the calling thread in the
+     * order of 'sources', so the Man Directories match a single threaded run exactly, whatever the thread count.
+     *
+     * @param sources - Documents to collect, in order.
+     * @param names - Function to name a document for error messages.
+     * @param collector - Function to total a single document.
+     * @param merger - Consumer of each document and its totals, called in order.
+     * @param <T> - Type of document.
+     * @return - { DocumentsCollected, Errors }.
+     */
+    private <T> int[] collectTotals(List<T> sources, Function<T, String> names, TotalsCollector<T> collector,
+                                    BiConsumer<T, DocumentTotals> merger) {
+        int documentsCollected = 0, errorsEncountered = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(sources.size(), 1)));
+        try {
+            List<Future<DocumentTotals>> collections = new ArrayList<>(sources.size());
+            for (T source : sources) {
+                collections.add(pool.submit(() -> collector.collect(source)));
+            }
+            for (int i = 0; i < collections.size(); i++) {
+                String name = names.apply(sources.get(i));
+                try {
+                    merger.accept(sources.get(i), collections.get(i).get());
+                    documentsCollected++;
+                } catch (ExecutionException ex) {
+                    if (reportFailure(ex, name)) {
+                        errorsEncountered++;
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    System.err.println("Interrupted whilst collecting '" + name + "'!");
+                    errorsEncountered += collections.size() - i;
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new int[] { documentsCollected, errorsEncountered };
+    }
+
+    /**
+     * Helper method to report a document which failed to be read, empty files are silently ignored.
+     *
+     * @param ex - ExecutionException thrown by the task which read the document.
+     * @param name - Name of the document.
+     * @return - true = counts as an error, false = empty file.
+     */
+    static boolean reportFailure(ExecutionException ex, String name) {
+        Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+        if (cause instanceof EmptyFileException) {
+            return false;
+        }
+        System.err.println(cause.getClass().getSimpleName() + " encountered for file '" + name + "'!");
+        if (cause.getMessage() != null) {
+            System.err.println("Message Provided: " + cause.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Helper method to total the data of a single ExcelDocument and its ExcelSheets.
+     *
+     * @param document - ExcelDocument to scan.
+     * @return - Totals of the document.
+     * @throws SheetNotValidException - If a sheet being read is Null or Empty.
+     */
+    private DocumentTotals collectDocument(ExcelDocument document) throws SheetNotValidException {
+        DocumentTotals totals = new DocumentTotals(document.getWorkBookName());
+        double[] values = new double[0];
+        for (int index = 0; index < document.getSheetCount(); index++) {
+            ExcelSheet sheet = document.getSheet(index);
+            totals.countSheet();
+            System.out.println("Scanning through sheet '" + sheet.getName()
+                    + "' of workbook '" + document.getWorkBookName() + "'!");
+
+            if (totals.getHeaders() == null) {
+                int row = 0;
+                int maxCols = sheet.getMaxColumns(row);
+                String[] headerValues = new String[maxCols];
+                for (int i = 0; i < maxCols; i++) {
+                    try {
+                        headerValues[i] = sheet.getCell(row, i).getStringCellValue();
+                    } catch (CellNotFoundException e) {
+                        break;
                     }
-                    savedHeaders = true;
-                    System.out.println("Saved Headers for Output Document.");
                 }
+                totals.setHeaders(headerValues, maxCols);
+            }
 
-                for (int rowNo = 1; rowNo < sheet.getMaxRows(); rowNo++) { // Ignore Header of the Document.
-                    int maxColumns = sheet.getMaxColumns(rowNo);
-                    if (maxColumns > 2) { // First Name & Last Name required.
+            for (int rowNo = 1; rowNo < sheet.getMaxRows(); rowNo++) { // Ignore Header of the Document.
+                int maxColumns = sheet.getMaxColumns(rowNo);
+                if (maxColumns > 2) { // First Name & Last Name required.
+                    try {
+
+                        String lastName = sheet.getCell(rowNo, 0).getStringCellValue();
+                        String firstName = sheet.getCell(rowNo, 1).getStringCellValue();
+
+                        String grade = null;
                         try {
+                            grade = sheet.getCell(rowNo, 11).getStringCellValue();
+                        } catch (CellNotFoundException ignored) {} // Only required for new Men.
 
-                            String lastName = sheet.getCell(rowNo, 0).getStringCellValue()
-                                    .replaceAll("\n", "");
-                            String firstName = sheet.getCell(rowNo, 1).getStringCellValue()
-                                    .replaceAll("\n", "");
-
-                            if (firstName.isEmpty() || lastName.isEmpty()) continue;
-
-                            Man man;
-                            if (hasManBeenCreated(lastName, firstName)) {
-                                try {
-                                    man = getManByName(lastName, firstName);
-                                } catch (ManNotFoundException ignored) {
-                                    System.err.println(
-                                            "Despite using the Boolean Method, Man '" + firstName + " " + lastName
-                                                    + "' hasn't been found."
-                                    );
-                                    continue;
-                                }
-                            } else {
-                                man = new Man(lastName, firstName);
-
-                                Cell gradeCell = sheet.getCell(rowNo, 11);
-                                man.setGrade(gradeCell.getStringCellValue());
-
-                                men.add(man);
+                        if (values.length < maxColumns) {
+                            values = new double[maxColumns];
+                        }
+                        for (int i = 12; i < maxColumns; i++) {
+                            if (!projection.contains(i)) {
+                                values[i] = Double.NaN;
+                                continue;
                             }
-                            for (int i = 12; i < maxColumns; i++) {
-                                Cell cell = sheet.getCell(rowNo, i);
-                                man.addData(i, cell.getNumericCellValue());
+                            try {
+                                values[i] = sheet.getCell(rowNo, i).getNumericCellValue();
+                            } catch (CellNotFoundException ignored) {
+                                values[i] = Double.NaN;
                             }
-                        } catch (CellNotFoundException e) {
-                            e.printStackTrace();
                         }
+                        totals.addRow(lastName, firstName, grade, values, maxColumns);
+                    } catch (CellNotFoundException e) {
+                        e.printStackTrace();
                     }
                 }
-                System.out.println("Finished Scanning through sheet '" + sheet.getName() + "' of workbook '" + document.getWorkBookName() + "'!");
             }
+            System.out.println("Finished Scanning through sheet '" + sheet.getName() + "' of workbook '" + document.getWorkBookName() + "'!");
         }
+        return totals;
+    }
 
+    /**
+     * Method to set the cache which documents are looked up in before being read.
+     *
+     * @param cache - Cache of document totals, null to read every document.
+     */
+    public void setCache(AggregateCache cache) {
+        this.cache = cache;
     }
 
     /**
-     * Determines if a man has already been created and stored into the MEN Array.
+     * Method to describe how documents are read, used to discard a cache built with different settings.
      *
-     * @param lastName - Last name of the Man.
-     * @param firstName - First name of the Man.
-     * @return - true = exists, false = doesn't exist.
+     * @return - Signature of the reading settings.
      */
-    private boolean hasManBeenCreated(String lastName, String firstName) {
-        return men.stream().anyMatch(
-                man -> man.getName().equals(firstName.toUpperCase() + " " + lastName.toUpperCase())
-        );
+    public String getCacheSignature() {
+        // The streaming reader is versioned, as it collected fewer entries from blank cells before version 2.
+        return "reader=" + (streamingInput ? "stream2" : "workbook") + ",sheets=" + sheetFilter.getSignature()
+                + ",columns=" + projection.getSignature();
     }
 
     /**
-     * Method to retrieve a Man from their First name and their Last name.
+     * Method to read a single document straight into its totals, nothing of the document is kept afterwards.
+     * If a cache is set, unchanged documents are taken from the cache and read documents are added to it, unless
+     * they were saved again whilst being read.
      *
-     * @param lastName - Last name of the Man.
-     * @param firstName - First name of the Man.
-     * @return - Man Object.
-     * @throws ManNotFoundException - Thrown if the Man queried doesn't exist.
+     * @param file - XLSX File to be read.
+     * @return - Totals of the document.
+     * @throws Exception - Any Exception encountered whilst reading the document.
      */
-    private Man getManByName(String lastName, String firstName) throws ManNotFoundException {
-        for (Man man : men) {
-            if (man.getName().equals(firstName.toUpperCase() + " " + lastName.toUpperCase())) {
-                return man;
+    DocumentTotals collectFile(File file) throws Exception {
+        AggregateCache.Stamp stamp = cache == null ? null : cache.stamp(file);
+        DocumentTotals totals = stamp == null ? null : cache.get(stamp);
+        if (totals != null) {
+            return totals;
+        }
+        if (streamingInput) {
+            totals = new TimesheetStreamReader(sheetFilter, projection).read(file);
+        } else {
+            ExcelDocument document = convertDocument(file);
+            try {
+                totals = collectDocument(document);
+            } finally {
+                document.close();
             }
         }
-        throw new ManNotFoundException("Man '" + firstName + " " + lastName + "' not found.");
+        if (stamp != null) {
+            cache.put(stamp, totals);
+        }
+        return totals;
     }
 
     /**
-     * Method to remove invalid data from ALL Men & header data
+     * Method to merge the totals of a document into the Man Directories, creating Men where required.
+     * The first document merged with a header row provides the headers for the Output Document.
+     *
+     * @param totals - Totals of a single document.
      */
-    public void removeInvalidData() {
+    void mergeTotals(DocumentTotals totals) {
+        int[] read = totals.getReadStatistics();
+        sheetsCollected += read[0];
+        rowsCollected += read[1];
+        cellsCollected += read[2];
+        if (!this.savedHeaders && totals.getHeaders() != null) {
+            saveHeaders(totals.getHeaders());
+        }
+        for (DocumentTotals.WorkerTotals worker : totals.getWorkers()) {
+            Man man = men.getOrCreate(worker.getLastName(), worker.getFirstName(), worker.getGrade());
+            if (man == null) {
+                reportSkipped(worker, totals);
+                continue;
+            }
+            addWorkerTotals(man, worker);
+        }
+    }
+
+    /**
+     * Method to collect kept documents into the Man Directories again, after some of them were added, changed or
+     * removed. The result matches merging every document with 'mergeTotals()' in order, but when the Men keep
+     * their order only the Men found in the changed documents are emptied and collected again, any other change
+     * rebuilds the Man Directories from the documents given (which are already in memory, so nothing is read).
+     *
+     * @param documents - Totals of every document, in the order they were found.
+     * @param changed - Totals of the documents added, changed or removed, both before and after the change.
+     * @return - Men which were collected again and must be priced by 'setupPaygrades(Collection)'.
+     */
+    public Collection<Man> recollect(List<DocumentTotals> documents, Collection<DocumentTotals> changed) {
+        headers.clear();
+        savedHeaders = false;
+        for (DocumentTotals totals : documents) {
+            if (totals.getHeaders() != null) {
+                saveHeaders(totals.getHeaders());
+                break;
+            }
+        }
+
+        // A Man is registered by the first document giving them a grade, so this is the order a full merge gives.
+        LinkedHashMap<String, DocumentTotals.WorkerTotals> order = new LinkedHashMap<>();
+        for (DocumentTotals totals : documents) {
+            for (DocumentTotals.WorkerTotals worker : totals.getWorkers()) {
+                if (worker.getGrade() != null) {
+                    order.putIfAbsent(WorkerRegistry.getKey(worker.getLastName(), worker.getFirstName()), worker);
+                }
+            }
+        }
+        boolean reordered = false;
+        Iterator<String> keys = order.keySet().iterator();
         for (Man man : men) {
-            man.removeInvalidEntries();
-            System.out.println(man);
+            if (!keys.hasNext() || !keys.next().equals(man.getName())) {
+                reordered = true;
+                break;
+            }
+        }
+        if (reordered) {
+            men.clear();
+            for (DocumentTotals totals : documents) {
+                mergeTotals(totals);
+            }
+            return men.getMen();
+        }
+
+        Set<String> affected = new HashSet<>();
+        for (DocumentTotals totals : changed) {
+            for (DocumentTotals.WorkerTotals worker : totals.getWorkers()) {
+                affected.add(WorkerRegistry.getKey(worker.getLastName(), worker.getFirstName()));
+            }
+        }
+        int registered = men.size(), index = 0;
+        List<Man> updated = new ArrayList<>();
+        for (Map.Entry<String, DocumentTotals.WorkerTotals> entry : order.entrySet()) {
+            if (index++ < registered && !affected.contains(entry.getKey())) {
+                continue;
+            }
+            DocumentTotals.WorkerTotals first = entry.getValue();
+            Man man = men.getOrCreate(first.getLastName(), first.getFirstName(), first.getGrade());
+            man.clearData();
+            man.setGrade(first.getGrade());
+            boolean created = false;
+            for (DocumentTotals totals : documents) {
+                DocumentTotals.WorkerTotals worker = totals.getWorker(entry.getKey());
+                if (worker == null) {
+                    continue;
+                }
+                if (!created && worker != first) {
+                    reportSkipped(worker, totals);
+                    continue;
+                }
+                created = true;
+                addWorkerTotals(man, worker);
+            }
+            updated.add(man);
+        }
+        return updated;
+    }
+
+    /**
+     * Helper method to save the headers of the Output Document, only the projected columns are kept.
+     *
+     * @param headerValues - Header text indexed by column.
+     */
+    private void saveHeaders(String[] headerValues) {
+        for (int i = 0; i < headerValues.length; i++) {
+            if (projection.contains(i)) {
+                headers.put(i, headerValues[i]);
+            }
         }
-        for (int i : Main.invalid) {
-            headers.remove(i);
+        savedHeaders = true;
+        System.out.println("Saved Headers for Output Document.");
+    }
+
+    /**
+     * Helper method to add the total of each column of a Man's totals onto the Man.
+     * The bits lost whilst summing the document are added after its total, rather than being rounded into it first.
+     *
+     * @param man - Man to add to.
+     * @param worker - Totals of the Man within a document.
+     */
+    private static void addWorkerTotals(Man man, DocumentTotals.WorkerTotals worker) {
+        for (int i = 0; i < worker.getColumns(); i++) {
+            if (worker.getEntries(i) > 0) {
+                man.addData(i, worker.getSum(i), worker.getEntries(i));
+                man.addData(i, worker.getCompensation(i), 0);
+            }
         }
     }
 
+    /**
+     * Helper method to report the rows of a Man which were skipped, as the Man had no grade to be created with.
+     *
+     * @param worker - Totals of the Man within a document.
+     * @param totals - Totals of the document.
+     */
+    private static void reportSkipped(DocumentTotals.WorkerTotals worker, DocumentTotals totals) {
+        System.err.println("Man '" + worker.getFirstName() + " " + worker.getLastName()
+                + "' has no grade in '" + totals.getDocumentName() + "', their rows have been skipped.");
+    }
+
+    /**
+     * Method to return the headers of the Output Document, saved from the first document with a header row.
+     *
+     * @return - Read-only view of the header text, indexed by column.
+     */
+    public Map<Integer, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * Method to return the registry of every Man collected.
+     *
+     * @return - Worker Registry.
+     */
+    public WorkerRegistry getWorkers() {
+        return men;
+    }
+
     /**
      * Add a Paygrade to the system.
      *
@@ -224,21 +698,45 @@ public class PayrollCollator {
      */
     public void addPaygrade(Grade grade) {
         this.grades.add(grade);
+        this.rateTable = null;
         System.out.println("Added Grade: '" + grade + "'");
     }
 
+    /**
+     * Set the Paygrades to a RateTable which was compiled once and is shared with other collators, in place of
+     * any Paygrades added before.
+     *
+     * @param rateTable - Compiled Grades, which are only ever read.
+     */
+    public void setPaygrades(RateTable rateTable) {
+        this.grades.clear();
+        this.grades.addAll(rateTable.getGrades());
+        this.rateTable = rateTable;
+    }
+
     /**
      * Setup PayGrades for men based of their PayCode (Siemens Provided)
+     * The Grades are compiled into a RateTable once, and kept for every later update, and each Man's Rate and
+     * Pay is worked out once here.
      */
     public void setupPaygrades() {
+        setupPaygrades(men.getMen());
+    }
+
+    /**
+     * Setup PayGrades for the given men only, such as those returned by 'recollect()'.
+     *
+     * @param men - Men to price.
+     */
+    public void setupPaygrades(Collection<Man> men) {
+        if (rateTable == null) {
+            rateTable = new RateTable(grades);
+        }
         for (Man man : men) {
-            String code = man.getGrade();
-            Optional<Grade> grade = grades.stream().filter(g -> g.getLinkedCode().equals(code)).findFirst();
-            if (!grade.isPresent()) {
-                System.err.println("Code for '" + man.getName() + "' is invalid !!(" + code + ")!!");
+            if (!rateTable.price(man)) {
+                System.err.println("Code for '" + man.getName() + "' is invalid !!(" + man.getGrade() + ")!!");
                 continue;
             }
-            man.setPayGrade(grade.get());
             System.out.println(man);
         }
     }
@@ -249,7 +747,17 @@ public class PayrollCollator {
      * @throws IllegalStateException - If the document could not be created.
      */
     public void createOutputWorkbook() throws IllegalStateException {
-        this.outputFile = new File(Main.OUTPUT_FILE_NAME);
+        createOutputWorkbook(new File(Main.OUTPUT_FILE_NAME));
+    }
+
+    /**
+     * Method to create/clear the output document at the given location.
+     *
+     * @param outputFile - File the output document is saved to.
+     * @throws IllegalStateException - If the document could not be created.
+     */
+    public void createOutputWorkbook(File outputFile) throws IllegalStateException {
+        this.outputFile = outputFile;
         if (!this.outputFile.exists()) {
             try {
                 if (!this.outputFile.createNewFile()) {
@@ -271,148 +779,93 @@ public class PayrollCollator {
     }
 
     /**
-     * Method to output all of the Data into the Output workbook.
+     * Helper method to create the in-memory Output Workbook.
+     * Formulas are built by a FormulaBuilder so are always valid, parsing each one again is skipped.
      *
-     * @throws WorkbookNotValidException - Thrown if the workbook isn't valid.
-     * @throws IllegalArgumentException - Thrown if an argument for the output methods is incorrect.
+     * @return - Empty Workbook.
      */
-    public void outputData() throws WorkbookNotValidException, IllegalArgumentException {
-        document = new ExcelDocument(outputBook, outputFile.getName());
-        ExcelSheet summary = document.createSheet("Summary");
-        boolean headersSet = false;
-        ExcelSheet hours = document.createSheet("Hours");
-        ArrayList<Integer> hoursRequired = new ArrayList<>(Arrays.asList(
-                12, 13, 17, 32, 37
-        ));
-        ExcelSheet expenses = document.createSheet("Expenses");
-        ArrayList<Integer> expensesRequired = new ArrayList<>(Arrays.asList(
-                15, 27
-        ));
-
-        int index = 1;
-        int hoursIndex = 0, expensesIndex = 0, columnIndex = 0;
-        try {
-            for (Man man : men) {
-                columnIndex=0;
-                hoursIndex=0;
-                expensesIndex=0;
-                if (!headersSet) {
-                    summary.setCell(0, columnIndex++, "Last Name", CellType.STRING, true);
-                    hours.setCell(0, hoursIndex++, "Last Name", CellType.STRING, true);
-                    expenses.setCell(0, expensesIndex++, "Last Name", CellType.STRING, true);
-                    summary.setCell(0, columnIndex++, "First Name", CellType.STRING, true);
-                    hours.setCell(0, hoursIndex++, "First Name", CellType.STRING, true);
-                    expenses.setCell(0, expensesIndex++, "First Name", CellType.STRING, true);
-                    for (Integer key : man.getKeys()) {
-                        summary.setCell(0, columnIndex++, headers.get(key), CellType.STRING, true);
-                        if (hoursRequired.contains(key)) {
-                            hours.setCell(0, hoursIndex++, headers.get(key), CellType.STRING, true);
-                        }
-                        if (expensesRequired.contains(key)) {
-                            expenses.setCell(0, expensesIndex++, headers.get(key), CellType.STRING, true);
-                        }
-                    }
-                    headersSet = true;
-                    columnIndex = 0;
-                    hoursIndex = 0;
-                    expensesIndex = 0;
-                }
+    static XSSFWorkbook createOutputBook() {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        workbook.setCellFormulaValidation(false);
+        return workbook;
+    }
 
-                summary.setCell(index, columnIndex++, man.getLast(), CellType.STRING, true);
-                summary.setCell(index, columnIndex++, man.getFirst(), CellType.STRING, true);
+    /**
+     * Method to set the writer used by 'outputData()', rows are then streamed to the Output File
+     * instead of being built up in memory.
+     *
+     * @param outputWriter - Streaming writer, null to build the Output Workbook in memory.
+     */
+    public void setOutputWriter(StreamingOutputWriter outputWriter) {
+        this.outputWriter = outputWriter;
+    }
 
-                hours.setCell(index, hoursIndex++, man.getLast(), CellType.STRING, true);
-                hours.setCell(index, hoursIndex++, man.getFirst(), CellType.STRING, true);
+    /**
+     * Method to set the writer used by 'exportData()'.
+     *
+     * @param exportWriter - CSV/TSV writer, null to not export.
+     */
+    public void setExportWriter(DelimitedOutputWriter exportWriter) {
+        this.exportWriter = exportWriter;
+    }
 
-                expenses.setCell(index, expensesIndex++, man.getLast(), CellType.STRING, true);
-                expenses.setCell(index, expensesIndex++, man.getFirst(), CellType.STRING, true);
+    /**
+     * Method to return the writer used by 'exportData()'.
+     *
+     * @return - CSV/TSV writer, or null if the collated data isn't exported.
+     */
+    public DelimitedOutputWriter getExportWriter() {
+        return exportWriter;
+    }
 
-                boolean hoursUpdate = false, expensesUpdate = false;
-                for (Integer key : man.getKeys()) {
-                    int temp = index;
-                    double value = man.getData(key);
-                    summary.setCell(index, columnIndex, value, CellType.NUMERIC, true);
-                    if (hoursRequired.contains(key)) {
-                        hours.setCell(index, hoursIndex, value, CellType.NUMERIC, true);
-                        hoursUpdate = true;
-                    }
-                    if (expensesRequired.contains(key)) {
-                        expenses.setCell(index, expensesIndex, value, CellType.NUMERIC, true);
-                        expensesUpdate = true;
-                    }
-                    index++;
-                    summary.setCell(index, columnIndex, man.getPayGrade(key, value, false),
-                            CellType.NUMERIC, true);
-                    if (hoursRequired.contains(key)) {
-                        hours.setCell(index, hoursIndex, man.getPayGrade(key, value, false),
-                                CellType.NUMERIC, true);
-                    }
-                    if (expensesRequired.contains(key)) {
-                        expenses.setCell(index, expensesIndex, man.getPayGrade(key, value, false),
-                                CellType.NUMERIC, true);
-                    }
-                    index++;
-                    summary.setCell(index, columnIndex, man.getPayGrade(key, value, true),
-                            CellType.NUMERIC, true);
-                    if (hoursRequired.contains(key)) {
-                        hours.setCell(index, hoursIndex, man.getPayGrade(key, value, true),
-                                CellType.NUMERIC, true);
-                    }
-                    if (expensesRequired.contains(key)) {
-                        expenses.setCell(index, expensesIndex, man.getPayGrade(key, value, true),
-                                CellType.NUMERIC, true);
-                    }
-                    index = temp;
-                    columnIndex++;
-                    if (hoursUpdate) {
-                        hoursUpdate = false;
-                        hoursIndex++;
-                    }
-                    if (expensesUpdate) {
-                        expensesUpdate = false;
-                        expensesIndex++;
-                    }
-                }
-                index+=2;
-                summary.setCell(
-                        index, columnIndex,
-                        getFormula(columnIndex, index, hoursRequired.size(), expensesRequired.size(), 1),
-                        CellType.FORMULA, true
-                );
-                hours.setCell(
-                        index, hoursIndex,
-                        getFormula(hoursIndex, index, hoursRequired.size(), expensesRequired.size(), 2),
-                        CellType.FORMULA, true
-                );
-                expenses.setCell(
-                        index, expensesIndex,
-                        getFormula(expensesIndex, index, hoursRequired.size(), expensesRequired.size(), 3),
-                        CellType.FORMULA, true
-                );
-                index++;
+    /**
+     * Method to build the column plan of the Output Document, from the collected headers and every Man's columns.
+     *
+     * @return - Column plan, every Man is written to the same columns.
+     */
+    public ColumnPlan createColumnPlan() {
+        Set<Integer> columns = new HashSet<>();
+        for (Integer column : headers.keySet()) {
+            if (column >= DocumentTotals.FIRST_VALUE_COLUMN) {
+                columns.add(column);
             }
-            summary.setCell(
-                    index, columnIndex,
-                    getFormula(columnIndex, index, 0,0, 10),
-                    CellType.FORMULA, true
-            );
-            hours.setCell(
-                    index, hoursIndex,
-                    getFormula(hoursIndex, index, 0,0, 11),
-                    CellType.FORMULA, true
-            );
-            expenses.setCell(
-                    index, expensesIndex,
-                    getFormula(expensesIndex, index, 0,0, 12),
-                    CellType.FORMULA, true
-            );
-        } catch (Exception ex) {
-            System.err.println("Failed to create pages.");
-            System.err.println(ex.getClass().getSimpleName() + " has been encountered!");
-            if (ex.getMessage() != null) {
-                System.err.println(ex.getMessage());
+        }
+        for (int column : men.getStore().getColumns()) {
+            columns.add(column);
+        }
+        return new ColumnPlan(columns, HOURS_REQUIRED, EXPENSES_REQUIRED);
+    }
+
+    /**
+     * Method to output all of the Data into the Output workbook.
+     * Columns are laid out by a ColumnPlan, so each column lines up across every Man.
+     * A new Workbook is built on each call, so the Output File can be written again after the Men change, every
+     * Man is written each time even when 'recollect()' only changed some of them.
+     *
+     * @return - true = every page was created and saved, false = the Output File is incomplete or wasn't saved.
+     * @throws WorkbookNotValidException - Thrown if the workbook isn't valid.
+     * @throws IllegalArgumentException - Thrown if an argument for the output methods is incorrect.
+     */
+    public boolean outputData() throws WorkbookNotValidException, IllegalArgumentException {
+        ColumnPlan plan = createColumnPlan();
+        if (outputWriter != null) {
+            try {
+                return outputWriter.write(outputFile, headers, men.getMen(), plan);
+            } catch (IOException ex) {
+                System.err.println("Failed to save the workbook.");
+                return false;
             }
         }
+        document = ExcelDocument.forOutput(createOutputBook(), outputFile.getName());
+        ExcelSheet[] sheets = new ExcelSheet[3];
+        sheets[ColumnPlan.SUMMARY] = document.createSheet("Summary");
+        sheets[ColumnPlan.HOURS] = document.createSheet("Hours");
+        sheets[ColumnPlan.EXPENSES] = document.createSheet("Expenses");
+        RowCursor[] cursors = new RowCursor[sheets.length];
+        for (int sheet = 0; sheet < sheets.length; sheet++) {
+            cursors[sheet] = sheets[sheet].getCursor();
+        }
+        boolean created = new OutputRowWriter(headers, plan).writeSheets(cursors, men);
 
         try {
             FileOutputStream outputStream = new FileOutputStream(outputFile);
@@ -421,64 +874,49 @@ public class PayrollCollator {
             document.getWorkbook().close();
         } catch (IOException ex) {
             System.err.println("Failed to save the workbook.");
+            return false;
         }
+        return created;
     }
 
     /**
-     * Returns a formula to total/sum cells based on location.
-     *
-     * @param column - Current column.
-     * @param row - Current row.
-     * @param hoursR - Amount of Hours Cells.
-     * @param expensesR - Amount of Expenses Cells.
-     * @param page - Page (determines what page you want to return a forumla for).
-     * @return - SUM(A1:A2) (example)
-     */
-    private String getFormula(int column, int row, int hoursR, int expensesR, int page) {
-        String formula = "SUM(%BEGIN%:%END%)";
-        String begin, last;
-        switch (page) {
-            case 1:
-                begin = convertToCell(column-hoursR-expensesR) + (row+1);
-                last = convertToCell(column-1) + (row+1);
-                return formula.replaceAll("%BEGIN%", begin).replaceAll("%END%", last);
-            case 2:
-                begin = convertToCell(column-hoursR) + (row+1);
-                last = convertToCell(column-1) + (row+1);
-                return formula.replaceAll("%BEGIN%", begin).replaceAll("%END%", last);
-            case 3:
-                begin = convertToCell(column-expensesR) + (row+1);
-                last = convertToCell(column-1) + (row+1);
-                return formula.replaceAll("%BEGIN%", begin).replaceAll("%END%", last);
-            case 10:
-            case 11:
-            case 12:
-                begin = convertToCell(column) + row;
-                last = convertToCell(column) + 2;
-                return formula.replaceAll("%BEGIN%", begin).replaceAll("%END%", last);
-            default:
-                return formula;
-        }
-    }
-
-    /**
-     * Return a Cell Index (A->Z) from an integer.
-     *
-     * @param index - Integer to convert to A-Z
-     * @return - A-Z
-     */
-    private String convertToCell(int index) {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        int bigChar = -1;
-        if (chars.length() <= index) {
-            while (chars.length() <= index) {
-                index -= 26;
-                bigChar += 1;
-            }
-            return chars.charAt(bigChar) + "" +  chars.charAt(index);
-        } else {
-            return "" + chars.charAt(index);
+     * Method to export the Summary, Hours and Expenses to CSV/TSV files for the payroll system, alongside
+     * 'outputData()'. The rows are streamed straight from the Man Directories, without any Workbook.
+     *
+     * @param outputFile - Output File the exported files are named after, e.g. 'UKERLTD - Output - Summary.csv'.
+     * @return - Amount of bytes written, or -1 if nothing is exported or the files weren't saved.
+     */
+    public long exportData(File outputFile) {
+        if (exportWriter == null) {
+            return -1;
         }
+        try {
+            return exportWriter.write(outputFile, headers, men, createColumnPlan());
+        } catch (IOException ex) {
+            System.err.println("Failed to save the exported files.");
+        } catch (IllegalStateException ex) {
+            System.err.println("Failed to export the data, " + ex.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Method to write the Summary, Hours and Expenses sheets into a Workbook shared with other collators,
+     * such as one Workbook with a set of sheets per partition. The Workbook isn't saved.
+     *
+     * @param workbook - Workbook to add the sheets to, in memory or streaming.
+     * @param prefix - Text before the name of each sheet, e.g. 'Week 1 ' for 'Week 1 Summary'.
+     * @return - true = every page was created, false = the pages are incomplete.
+     * @throws IllegalArgumentException - If a sheet of the same name already exists, or the name is too long.
+     */
+    public boolean writeSheets(Workbook workbook, String prefix) throws IllegalArgumentException {
+        RowCursor[] cursors = new RowCursor[3];
+        cursors[ColumnPlan.SUMMARY] = new RowCursor(workbook.createSheet(prefix + "Summary"));
+        cursors[ColumnPlan.HOURS] = new RowCursor(workbook.createSheet(prefix + "Hours"));
+        cursors[ColumnPlan.EXPENSES] = new RowCursor(workbook.createSheet(prefix + "Expenses"));
+        System.out.println("Created Sheets '" + prefix + "Summary', '" + prefix + "Hours' and '"
+                + prefix + "Expenses'!");
+        return new OutputRowWriter(headers, createColumnPlan()).writeSheets(cursors, men);
     }
 
     /**
@@ -486,10 +924,50 @@ public class PayrollCollator {
      */
     public void shutdown() {
         this.headers.clear();
-        this.documents.clear();
+        closeDocuments();
         this.relevantFiles.clear();
         this.men.clear();
         this.grades.clear();
+        this.rateTable = null;
+    }
+
+    /**
+     * A relevant document once converted, or its totals if they were taken from the cache instead.
+     */
+    private static class ConvertedDocument {
+
+        private final ExcelDocument document;
+        private final AggregateCache.Stamp stamp;
+        private final DocumentTotals totals;
+
+        /**
+         * Constructor to initialise a ConvertedDocument.
+         *
+         * @param document - Converted document, null if the totals were taken from the cache.
+         * @param stamp - Stamp the totals are cached against once scanned, null if they aren't cached.
+         * @param totals - Totals taken from the cache, null if the document must be scanned.
+         */
+        private ConvertedDocument(ExcelDocument document, AggregateCache.Stamp stamp, DocumentTotals totals) {
+            this.document = document;
+            this.stamp = stamp;
+            this.totals = totals;
+        }
+
+        private String getName() {
+            return document != null ? document.getWorkBookName() : totals.getDocumentName();
+        }
+
+    }
+
+    /**
+     * Function to total a single document, which may throw any Exception encountered.
+     *
+     * @param <T> - Type of document.
+     */
+    private interface TotalsCollector<T> {
+
+        DocumentTotals collect(T source) throws Exception;
+
     }
 
 }
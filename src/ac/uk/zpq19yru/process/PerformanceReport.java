@@ -0,0 +1,324 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Measures each phase of a run (time, CPU, heap and throughput) and saves the results as JSON.
+
+*/
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PerformanceReport {
+
+    private final List<Phase> phases = new ArrayList<>();
+    private final Map<String, String> settings = new LinkedHashMap<>();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final Set<String> heapPoolNames = new HashSet<>();
+    private final AtomicLong collectedBytes = new AtomicLong();
+    private final AtomicLong heapHighWater = new AtomicLong(); // Highest heap use sampled in the current phase.
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onGarbageCollection;
+    private final long started = System.currentTimeMillis();
+
+    /**
+     * Constructor to initialise a PerformanceReport, garbage collections are observed from here on so
+     * that bytes allocated by every thread (including short-lived pool threads) can be totalled.
+     */
+    public PerformanceReport() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                heapPools.add(pool);
+                heapPoolNames.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    /**
+     * Method to record a setting the run used, saved alongside the phases.
+     *
+     * @param name - Setting name.
+     * @param value - Setting value.
+     */
+    public void setSetting(String name, Object value) {
+        settings.put(name, String.valueOf(value));
+    }
+
+    /**
+     * Method to start measuring a phase, only one phase should be measured at a time.
+     *
+     * @param name - Name of the phase.
+     * @return - Phase, to count the work done against and end.
+     */
+    public Phase start(String name) {
+        Phase phase = new Phase(name);
+        phases.add(phase);
+        return phase;
+    }
+
+    /**
+     * Method to stop observing garbage collections, no more phases should be started after this.
+     */
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (Exception ignored) {} // Already removed.
+        }
+        emitters.clear();
+    }
+
+    /**
+     * Method to save the report as JSON.
+     *
+     * @param file - File to save to.
+     * @throws IOException - If the file cannot be written.
+     */
+    public void save(File file) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Runtime runtime = Runtime.getRuntime();
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"started\": ").append(quote(format.format(new Date(started)))).append(",\n");
+        json.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+        json.append("  \"processors\": ").append(runtime.availableProcessors()).append(",\n");
+        json.append("  \"max_heap_bytes\": ").append(runtime.maxMemory()).append(",\n");
+        json.append("  \"settings\": {");
+        String separator = "\n";
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            json.append(separator).append("    ").append(quote(setting.getKey())).append(": ")
+                    .append(quote(setting.getValue()));
+            separator = ",\n";
+        }
+        json.append(settings.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"phases\": [");
+        separator = "\n";
+        for (Phase phase : phases) {
+            json.append(separator);
+            phase.appendJson(json);
+            separator = ",\n";
+        }
+        json.append(phases.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    /**
+     * Helper method to total the bytes freed by a garbage collection from the heap pools.
+     * The heap use just before the collection is sampled as well, as heap use peaks when a collection starts.
+     *
+     * @param notification - Notification sent by a garbage collector.
+     * @param handback - Unused.
+     */
+    private void onGarbageCollection(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long freed = 0, used = 0;
+        for (Map.Entry<String, MemoryUsage> before : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+            if (!heapPoolNames.contains(before.getKey())) {
+                continue;
+            }
+            used += before.getValue().getUsed();
+            MemoryUsage after = info.getGcInfo().getMemoryUsageAfterGc().get(before.getKey());
+            if (after != null) {
+                freed += before.getValue().getUsed() - after.getUsed();
+            }
+        }
+        collectedBytes.addAndGet(freed);
+        heapHighWater.accumulateAndGet(used, Math::max);
+    }
+
+    private long getHeapUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    /**
+     * Helper method to get the CPU time used by every thread of the process.
+     *
+     * @return - CPU time in nanoseconds, or -1 if the JVM cannot provide it.
+     */
+    private static long getProcessCpuTime() {
+        OperatingSystemMXBean system = ManagementFactory.getOperatingSystemMXBean();
+        if (system instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) system).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static long[] getGarbageCollections() {
+        long count = 0, time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(collector.getCollectionCount(), 0);
+            time += Math.max(collector.getCollectionTime(), 0);
+        }
+        return new long[] { count, time };
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * A single measured phase of the run.
+     */
+    public class Phase {
+
+        private final String name;
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private final long startNanos, startCpu, startHeap, startCollected;
+        private final long[] startCollections;
+        private long wallNanos = -1, cpuNanos, allocatedBytes, peakHeapBytes;
+        private long[] collections;
+
+        private Phase(String name) {
+            this.name = name;
+            this.startCollections = getGarbageCollections();
+            this.startCollected = collectedBytes.get();
+            this.startHeap = getHeapUsed();
+            heapHighWater.set(startHeap);
+            this.startCpu = getProcessCpuTime();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Method to count work done during the phase, e.g. ("files", 12), counts of the same unit are added.
+         *
+         * @param unit - Unit of work, reported with a rate per second.
+         * @param amount - Amount of work.
+         * @return - This Phase, for chaining.
+         */
+        public Phase count(String unit, long amount) {
+            counts.merge(unit, amount, Long::sum);
+            return this;
+        }
+
+        /**
+         * Method to stop measuring the phase.
+         * Allocated bytes are the growth in heap use plus everything garbage collected during the phase,
+         * so they include every thread, within the granularity of each thread's allocation buffer.
+         * Peak heap use is the highest total heap use seen at the start and end of the phase and just before each
+         * garbage collection during it, so it is a true peak of the whole heap at a single moment.
+         */
+        public void end() {
+            if (wallNanos >= 0) {
+                return;
+            }
+            wallNanos = System.nanoTime() - startNanos;
+            long cpu = getProcessCpuTime();
+            cpuNanos = cpu < 0 || startCpu < 0 ? -1 : cpu - startCpu;
+            allocatedBytes = Math.max(getHeapUsed() - startHeap + collectedBytes.get() - startCollected, 0);
+            peakHeapBytes = heapHighWater.accumulateAndGet(getHeapUsed(), Math::max);
+            long[] now = getGarbageCollections();
+            collections = new long[] { now[0] - startCollections[0], now[1] - startCollections[1] };
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Method to return the wall time of the phase.
+         *
+         * @return - Milliseconds, or -1 if the phase hasn't ended.
+         */
+        public double getWallMillis() {
+            return wallNanos < 0 ? -1 : wallNanos / 1_000_000.0;
+        }
+
+        private void appendJson(StringBuilder json) {
+            double seconds = Math.max(wallNanos, 1) / 1_000_000_000.0;
+            json.append("    {\n");
+            json.append("      \"name\": ").append(quote(name)).append(",\n");
+            json.append("      \"wall_ms\": ").append(format(getWallMillis())).append(",\n");
+            json.append("      \"cpu_ms\": ").append(cpuNanos < 0 ? "null" : format(cpuNanos / 1_000_000.0))
+                    .append(",\n");
+            json.append("      \"allocated_bytes\": ").append(allocatedBytes).append(",\n");
+            json.append("      \"peak_heap_bytes\": ").append(peakHeapBytes).append(",\n");
+            json.append("      \"gc_count\": ").append(collections == null ? 0 : collections[0]).append(",\n");
+            json.append("      \"gc_ms\": ").append(collections == null ? 0 : collections[1]).append(",\n");
+            json.append("      \"counts\": {");
+            String separator = "\n";
+            for (Map.Entry<String, Long> count : counts.entrySet()) {
+                json.append(separator).append("        ").append(quote(count.getKey())).append(": ")
+                        .append(count.getValue());
+                separator = ",\n";
+            }
+            json.append(counts.isEmpty() ? "},\n" : "\n      },\n");
+            json.append("      \"per_second\": {");
+            separator = "\n";
+            for (Map.Entry<String, Long> count : counts.entrySet()) {
+                json.append(separator).append("        ").append(quote(count.getKey())).append(": ")
+                        .append(format(count.getValue() / seconds));
+                separator = ",\n";
+            }
+            json.append(counts.isEmpty() ? "}\n" : "\n      }\n");
+            json.append("    }");
+        }
+
+    }
+
+}
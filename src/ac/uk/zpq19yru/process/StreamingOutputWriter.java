@@ -0,0 +1,92 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Writes the Output Document row by row, only a window of rows is kept in memory.
+
+*/
+
+import ac.uk.zpq19yru.objects.Man;
+import ac.uk.zpq19yru.objects.RowCursor;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+public class StreamingOutputWriter {
+
+    private final int rowAccessWindow;
+    private final boolean compressTempFiles;
+
+    /**
+     * Constructor to initialise a StreamingOutputWriter.
+     *
+     * @param rowAccessWindow - Amount of rows kept in memory before they are flushed to a temporary file.
+     * @param compressTempFiles - Should the temporary files be GZip compressed? (smaller on disk, more CPU)
+     * @throws IllegalArgumentException - If the window is less than 1.
+     */
+    public StreamingOutputWriter(int rowAccessWindow, boolean compressTempFiles) throws IllegalArgumentException {
+        if (rowAccessWindow < 1) {
+            throw new IllegalArgumentException("Row access window must be at least 1!");
+        }
+        this.rowAccessWindow = rowAccessWindow;
+        this.compressTempFiles = compressTempFiles;
+    }
+
+    /**
+     * Method to create an empty streaming Workbook, which keeps only the window of rows of each sheet in memory.
+     * It must be disposed of once written, to delete its temporary files.
+     *
+     * @return - Empty Workbook.
+     */
+    public SXSSFWorkbook createWorkbook() {
+        return new SXSSFWorkbook(null, rowAccessWindow, compressTempFiles);
+    }
+
+    /**
+     * Method to write the Summary, Hours and Expenses sheets to the Output File.
+     * The layout matches 'PayrollCollator.outputData()', three rows (Value, Rate, Pay) per Man, with a SUM
+     * at the end of each Pay row and a grand total underneath the last Man.
+     *
+     * @param outputFile - File to save the Workbook to.
+     * @param headers - Headers collected from the Timesheets.
+     * @param men - Men to write out, in order.
+     * @param plan - Columns written to each sheet.
+     * @return - true = every page was created, false = the pages are incomplete.
+     * @throws IOException - If the Workbook or its temporary files cannot be written.
+     */
+    public boolean write(File outputFile, Map<Integer, String> headers, Collection<Man> men, ColumnPlan plan)
+            throws IOException {
+        SXSSFWorkbook workbook = createWorkbook();
+        try {
+            Sheet[] sheets = new Sheet[3];
+            sheets[ColumnPlan.SUMMARY] = workbook.createSheet("Summary");
+            sheets[ColumnPlan.HOURS] = workbook.createSheet("Hours");
+            sheets[ColumnPlan.EXPENSES] = workbook.createSheet("Expenses");
+            System.out.println("Created Sheets 'Summary', 'Hours' and 'Expenses' (streaming, window of "
+                    + rowAccessWindow + " rows)!");
+            RowCursor[] cursors = new RowCursor[sheets.length];
+            for (int sheet = 0; sheet < sheets.length; sheet++) {
+                cursors[sheet] = new RowCursor(sheets[sheet]);
+            }
+            boolean created = new OutputRowWriter(headers, plan).writeSheets(cursors, men);
+
+            try (FileOutputStream outputStream = new FileOutputStream(outputFile)) {
+                workbook.write(outputStream);
+            }
+            return created;
+        } finally {
+            workbook.dispose(); // Deletes the temporary files backing the flushed rows.
+            workbook.close();
+        }
+    }
+
+}
@@ -0,0 +1,307 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Event-model Timesheet reader, streams rows into the Collator without building a Workbook.
+
+*/
+
+import ac.uk.zpq19yru.objects.ColumnProjection;
+import ac.uk.zpq19yru.objects.DocumentTotals;
+import ac.uk.zpq19yru.objects.SheetFilter;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+public class TimesheetStreamReader implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+    private static final SheetSkipped SHEET_SKIPPED = new SheetSkipped();
+
+    private final DataFormatter formatter = new RawValueFormatter();
+    private final SheetFilter filter;
+    private final ColumnProjection projection;
+    private String[] text = new String[16];
+    private double[] values = new double[16];
+    private boolean[] blank = new boolean[16]; // Cells in the row without a value, e.g. '<c r="AB2" s="1"/>'.
+    private int currentRow, cellsInRow, currentColumn, lastColumn = -1;
+    private boolean headersPending;
+    private DocumentTotals totals;
+
+    /**
+     * Constructor to initialise a TimesheetStreamReader, which reads every sheet.
+     * A reader holds the row currently being streamed, so it must only be used by one thread at a time.
+     */
+    public TimesheetStreamReader() {
+        this(SheetFilter.ALL, ColumnProjection.ALL);
+    }
+
+    /**
+     * Constructor to initialise a TimesheetStreamReader.
+     * A reader holds the row currently being streamed, so it must only be used by one thread at a time.
+     *
+     * @param filter - Rules deciding which sheets are read, a sheet skipped by name is never decompressed and a
+     *               sheet skipped by its headers is only parsed up to its first row.
+     * @param projection - Columns which are read, other cells are counted but never converted or stored.
+     */
+    public TimesheetStreamReader(SheetFilter filter, ColumnProjection projection) {
+        this.filter = filter;
+        this.projection = projection;
+        Arrays.fill(values, Double.NaN);
+    }
+
+    /**
+     * Method to stream every sheet of a Timesheet into a set of DocumentTotals.
+     * Only the current row is held in memory, the Workbook itself is never built.
+     * The totals match those collected from an ExcelDocument of the same file: blank cells are read as "" and 0,
+     * and a row is as wide as the amount of cells it holds. A sheet with missing rows is the exception, as
+     * ExcelSheet only reads as many rows as the sheet holds whereas every row is streamed.
+     *
+     * @param file - XLSX File to be read.
+     * @return - Totals of every Man found within the file.
+     * @throws IOException - If the file cannot be read.
+     * @throws OpenXML4JException - If the file isn't a valid XLSX package.
+     * @throws SAXException - If a sheet's XML cannot be parsed.
+     * @throws ParserConfigurationException - If an XML parser cannot be created.
+     */
+    public DocumentTotals read(File file)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        totals = new DocumentTotals(file.getName());
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream stream = sheets.next()) {
+                    String sheetName = sheets.getSheetName();
+                    if (!filter.acceptsName(sheetName)) {
+                        System.out.println("Skipped the sheet '" + sheetName + "' from the workbook '"
+                                + file.getName() + "'!");
+                        continue;
+                    }
+                    headersPending = filter.requiresHeaders();
+                    if (!headersPending) {
+                        totals.countSheet();
+                    }
+                    System.out.println("Streaming through sheet '" + sheetName
+                            + "' of workbook '" + file.getName() + "'!");
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new CellTrackingHandler(styles, strings));
+                    try {
+                        parser.parse(new InputSource(stream));
+                    } catch (SheetSkipped ignored) {} // Headers didn't match, the rest of the sheet isn't parsed.
+                    if (headersPending) {
+                        System.out.println("Skipped the sheet '" + sheetName + "' from the workbook '"
+                                + file.getName() + "' as its headers didn't match!");
+                        continue;
+                    }
+                    System.out.println("Finished Streaming through sheet '" + sheetName
+                            + "' of workbook '" + file.getName() + "'!");
+                }
+            }
+        } finally {
+            pkg.revert(); // Read-only packages are released with revert(), close() would attempt to save.
+        }
+        DocumentTotals result = totals;
+        totals = null;
+        return result;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+        if (headersPending && rowNum > 0) {
+            throw SHEET_SKIPPED; // No header row to match against.
+        }
+        if (lastColumn >= 0) {
+            Arrays.fill(text, 0, lastColumn + 1, null);
+            Arrays.fill(values, 0, lastColumn + 1, Double.NaN);
+            Arrays.fill(blank, 0, lastColumn + 1, false);
+        }
+        currentRow = rowNum;
+        cellsInRow = 0;
+        lastColumn = -1;
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+        int columns = cellsInRow; // As ExcelSheet, a row is as wide as the amount of cells it holds.
+        if (rowNum == 0) {
+            if (headersPending) {
+                if (!filter.acceptsHeaders(text, lastColumn + 1)) { // Only text headers, as 'ExcelDocument'.
+                    throw SHEET_SKIPPED;
+                }
+                headersPending = false;
+                totals.countSheet();
+            }
+            fillBlankCells();
+            totals.setHeaders(text, columns);
+        } else if (columns > 2) { // First Name & Last Name required.
+            fillBlankCells();
+            if (text[0] == null || text[1] == null) {
+                return;
+            }
+            totals.addRow(text[0], text[1], text[11], values, columns);
+        }
+    }
+
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+        if (formattedValue == null) {
+            return; // Empty cell which only holds a comment.
+        }
+        int column = cellReference == null ? currentColumn : getColumn(cellReference);
+        ensureCapacity(column);
+        blank[column] = false;
+        if (currentRow != 0 && !projection.contains(column)) {
+            return; // Headers are always kept, so a sheet's header signature can still be matched.
+        }
+        if (currentRow == 0 || column < 12) {
+            text[column] = formattedValue;
+            return;
+        }
+        try {
+            values[column] = Double.parseDouble(formattedValue);
+        } catch (NumberFormatException ignored) {
+            values[column] = Double.NaN; // Text within a numeric column isn't collected.
+        }
+    }
+
+    @Override
+    public void headerFooter(String text, boolean isHeader, String tagName) {}
+
+    /**
+     * Helper method to note a cell of the current row, before its value (if it has one) is given to 'cell()'.
+     *
+     * @param cellReference - Cell reference, e.g. 'AB12', or null if the cell doesn't have one.
+     */
+    private void startCell(String cellReference) {
+        currentColumn = cellReference == null ? lastColumn + 1 : getColumn(cellReference);
+        ensureCapacity(currentColumn);
+        blank[currentColumn] = true;
+        cellsInRow++;
+        lastColumn = Math.max(lastColumn, currentColumn);
+    }
+
+    /**
+     * Helper method to give the blank cells of the row the values an ExcelSheet reads from them, so both readers
+     * collect the same totals: "" from 'getStringCellValue()' and 0 from 'getNumericCellValue()'.
+     * Missing cells are left as null and NaN, as ExcelSheet doesn't find them.
+     */
+    private void fillBlankCells() {
+        for (int column = 0; column <= lastColumn; column++) {
+            if (!blank[column] || (currentRow != 0 && !projection.contains(column))) {
+                continue;
+            }
+            if (currentRow == 0 || column < 12) {
+                text[column] = "";
+            } else {
+                values[column] = 0;
+            }
+        }
+    }
+
+    /**
+     * Helper method to grow the row buffers so that they can hold the column given.
+     *
+     * @param column - Column index to be stored.
+     */
+    private void ensureCapacity(int column) {
+        if (column < text.length) {
+            return;
+        }
+        int size = Math.max(column + 1, text.length * 2);
+        int previous = values.length;
+        text = Arrays.copyOf(text, size);
+        values = Arrays.copyOf(values, size);
+        blank = Arrays.copyOf(blank, size);
+        Arrays.fill(values, previous, size, Double.NaN);
+    }
+
+    /**
+     * Helper method to get the zero-based column from a reference such as 'AB12', without allocating.
+     *
+     * @param cellReference - Cell reference provided by the sheet.
+     * @return - Column index, 27 for example.
+     */
+    private int getColumn(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Sheet handler which also notes every cell of a row, as cells without a value are never given to 'cell()'.
+     */
+    private class CellTrackingHandler extends XSSFSheetXMLHandler {
+
+        private CellTrackingHandler(StylesTable styles, ReadOnlySharedStringsTable strings) {
+            super(styles, null, strings, TimesheetStreamReader.this, formatter, false);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            super.startElement(uri, localName, qName, attributes);
+            if ("c".equals(localName) && (uri == null || uri.equals(XSSFRelation.NS_SPREADSHEETML))) {
+                startCell(attributes.getValue("r"));
+            }
+        }
+
+    }
+
+    /**
+     * Thrown from within the parser to stop parsing a sheet whose headers didn't match, without a stack trace.
+     */
+    private static class SheetSkipped extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private SheetSkipped() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    /**
+     * DataFormatter which returns the raw numeric value, so the streamed values match 'getNumericCellValue()'.
+     */
+    private static class RawValueFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString,
+                                            boolean use1904Windowing) {
+            return Double.toString(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,362 @@
+package ac.uk.zpq19yru.process;
+
+/*
+
+    Created By:     Callum Johnson
+    Created In:     Oct/2026
+    Project Name:   Payroll Collator
+    Package Name:   ac.uk.zpq19yru.process
+    Class Purpose:  Keeps the collator running, updating the Output File as Timesheets are added, changed or removed.
+
+*/
+
+import ac.uk.zpq19yru.exceptions.WorkbookNotValidException;
+import ac.uk.zpq19yru.objects.DocumentTotals;
+import ac.uk.zpq19yru.objects.Man;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+public class TimesheetWatcher implements Closeable {
+
+    private final PayrollCollator collator;
+    private final List<File> roots;
+    private final long debounce, maxDelay;
+    private final Set<Path> ignored = new HashSet<>();
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> folders = new HashMap<>();
+    private final Set<Path> changed = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LinkedHashMap<Path, DocumentTotals> documents = new LinkedHashMap<>();
+    private volatile Set<Path> collectedPaths = Collections.emptySet(); // Copy of the keys, for queries.
+    private boolean readAll = true, collated;
+    private AggregateCache cache;
+
+    /**
+     * Constructor to initialise a TimesheetWatcher, every folder below the roots is watched straight away.
+     *
+     * @param collator - Collator, set up with its grades, scanner and Output File, which is kept for every update.
+     * @param roots - Folders to scan and watch, in order.
+     * @param debounce - Milliseconds without a change before the Output File is updated.
+     * @param maxDelay - Most milliseconds the Output File is held back whilst changes keep arriving.
+     * @param ignored - Files written by the collator itself (Output File, metrics), changes to them are ignored.
+     * @throws IOException - If the folders cannot be watched.
+     */
+    public TimesheetWatcher(PayrollCollator collator, List<File> roots, long debounce, long maxDelay,
+                            Collection<File> ignored) throws IOException {
+        this.collator = collator;
+        this.roots = new ArrayList<>(roots);
+        this.debounce = Math.max(debounce, 0);
+        this.maxDelay = Math.max(maxDelay, this.debounce);
+        for (File file : ignored) {
+            this.ignored.add(getPath(file));
+        }
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (File root : roots) {
+            register(getPath(root));
+        }
+    }
+
+    /**
+     * Method to set the cache kept up to date after each update, its own files are ignored.
+     *
+     * @param cache - Cache, also set on the collator, or null for none.
+     */
+    public void setCache(AggregateCache cache) {
+        this.cache = cache;
+        if (cache != null) {
+            ignored.add(getPath(cache.getCacheFile()));
+            ignored.add(getPath(cache.getTempFile()));
+        }
+    }
+
+    /**
+     * Method to collate every Timesheet, then update the Output File each time they change, until closed.
+     * Changes are gathered until none arrive for 'debounce' milliseconds (or 'maxDelay' has passed since the
+     * first), so a burst of files being copied in is collated once.
+     */
+    public void run() {
+        update();
+        try {
+            while (true) {
+                if (!handle(watchService.take())) {
+                    continue;
+                }
+                long first = System.nanoTime(), last = first;
+                while (true) {
+                    long wait = Math.min(last + TimeUnit.MILLISECONDS.toNanos(debounce),
+                            first + TimeUnit.MILLISECONDS.toNanos(maxDelay)) - System.nanoTime();
+                    WatchKey key = wait > 0 ? watchService.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (key == null) {
+                        break;
+                    }
+                    if (handle(key)) {
+                        last = System.nanoTime();
+                    }
+                }
+                update();
+            }
+        } catch (ClosedWatchServiceException ignored) {
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method to bring the Output File up to date with the Timesheets.
+     * The folders are scanned again, but only new Timesheets and those changed since the last update are read,
+     * the totals of the others are kept in memory. Only the Men found in the changed Timesheets are collected
+     * and priced again, unless the order of the Men changes. The Output File itself is written again in full:
+     * an XLSX file is a zip of whole sheets, so changing a row means compressing its sheet again, and the row
+     * and grand totals are formulas over the position of every Man's rows. Queries made through 'read()' wait
+     * whilst the Men and the Output File are being updated, but not whilst Timesheets are being read.
+     *
+     * @return - true = the Output File was saved, false = nothing changed or it wasn't saved.
+     */
+    public synchronized boolean update() {
+        long start = System.nanoTime();
+        List<File> files = new ArrayList<>();
+        for (File root : roots) {
+            collator.scanDocuments(root, files::add);
+        }
+        List<File> toRead = new ArrayList<>();
+        for (File file : files) {
+            Path path = getPath(file);
+            if (readAll || changed.contains(path) || !documents.containsKey(path)) {
+                toRead.add(file);
+            }
+        }
+        changed.clear();
+        readAll = false;
+
+        Map<File, DocumentTotals> read = new HashMap<>();
+        int[] results = collator.readDocuments(toRead, read);
+        Set<File> reread = new HashSet<>(toRead);
+        LinkedHashMap<Path, DocumentTotals> next = new LinkedHashMap<>();
+        List<DocumentTotals> affected = new ArrayList<>();
+        for (File file : files) {
+            Path path = getPath(file);
+            DocumentTotals before = documents.remove(path);
+            DocumentTotals after = reread.contains(file) ? read.get(file) : before;
+            if (after != before) {
+                if (before != null) {
+                    affected.add(before);
+                }
+                if (after != null) {
+                    affected.add(after);
+                }
+            }
+            if (after != null) {
+                next.put(path, after);
+            }
+        }
+        for (Map.Entry<Path, DocumentTotals> removed : documents.entrySet()) {
+            affected.add(removed.getValue());
+            if (cache != null) {
+                cache.remove(removed.getKey().toFile());
+            }
+        }
+        documents = next;
+        collectedPaths = Collections.unmodifiableSet(new HashSet<>(next.keySet()));
+
+        if (affected.isEmpty() && collated) {
+            return false;
+        }
+        System.out.println(toRead.size() + " Timesheets were read, " + results[1] + " couldn't be read, "
+                + documents.size() + " Timesheets are collected.");
+        if (documents.isEmpty()) {
+            System.err.println("There are no collected Timesheets, the Output File hasn't been updated.");
+            return false;
+        }
+
+        collated = true;
+        Collection<Man> updated;
+        boolean saved = false;
+        long written = 0;
+        lock.writeLock().lock();
+        try {
+            updated = collator.recollect(new ArrayList<>(documents.values()), affected);
+            collator.setupPaygrades(updated);
+            long writing = System.nanoTime();
+            saved = collator.outputData();
+            if (saved && collator.getExportWriter() != null) {
+                saved = collator.exportData(collator.getOutputFile()) >= 0;
+            }
+            written = System.nanoTime() - writing;
+        } catch (WorkbookNotValidException | IllegalArgumentException ex) {
+            ex.printStackTrace();
+            updated = Collections.emptyList();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException ex) {
+                System.err.println("Failed to save the cache, every document will be read on the next run.");
+            }
+        }
+
+        long took = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (saved) {
+            System.out.println("Updated " + updated.size() + " of " + collator.getWorkers().size()
+                    + " Men in the Output File, in " + took + " ms (" + TimeUnit.NANOSECONDS.toMillis(written)
+                    + " ms writing every Man to the Output File).");
+        } else {
+            System.err.println("Failed to save data to the Output Workbook!");
+        }
+        return saved;
+    }
+
+    /**
+     * Method to update the Output File straight away after Timesheets were written, rather than waiting for
+     * their changes to be noticed.
+     *
+     * @param files - Timesheets which were added or replaced.
+     * @return - true = the Output File was saved, false = nothing changed or it wasn't saved.
+     */
+    public synchronized boolean update(Collection<File> files) {
+        for (File file : files) {
+            changed.add(getPath(file));
+        }
+        return update();
+    }
+
+    /**
+     * Method to query the collator, whilst the Men and the Output File aren't being updated.
+     * Many queries may run at once, so a query must only read from the collator.
+     *
+     * @param query - Query to run.
+     * @param <T> - Type of the result.
+     * @return - Result of the query.
+     */
+    public <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to determine if a Timesheet was collected by the last update, without waiting for an update.
+     *
+     * @param file - Timesheet.
+     * @return - true = collected, false = not found, excluded or couldn't be read.
+     */
+    public boolean isCollected(File file) {
+        return collectedPaths.contains(getPath(file));
+    }
+
+    /**
+     * Method to return the amount of Timesheets collected by the last update, without waiting for an update.
+     *
+     * @return - Amount of Timesheets.
+     */
+    public int getDocumentCount() {
+        return collectedPaths.size();
+    }
+
+    /**
+     * Method to stop watching, 'run()' returns once any update in progress has finished.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            System.err.println("Failed to stop watching the Timesheets.");
+        }
+    }
+
+    /**
+     * Helper method to note the changes of a watched folder, new folders are watched as well.
+     *
+     * @param key - Key of the folder which changed.
+     * @return - true = a Timesheet may have changed, false = only ignored files changed.
+     */
+    private synchronized boolean handle(WatchKey key) {
+        Path folder = folders.get(key);
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || folder == null) {
+                readAll = true; // Events were lost, so any Timesheet may have changed.
+                relevant = true;
+                continue;
+            }
+            Path path = folder.resolve((Path) event.context());
+            if (ignored.contains(path)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    register(path);
+                } catch (IOException ex) {
+                    System.err.println("Failed to watch '" + path + "', its changes may be missed.");
+                }
+            }
+            changed.add(path);
+            relevant = true;
+        }
+        if (!key.reset()) {
+            folders.remove(key);
+        }
+        return relevant;
+    }
+
+    /**
+     * Helper method to watch a folder and every folder below it.
+     *
+     * @param root - Folder to watch.
+     * @throws IOException - If a folder cannot be watched.
+     */
+    private void register(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path folder, BasicFileAttributes attributes) throws IOException {
+                folders.put(folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), folder);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Helper method to get the key of a file, matching the paths given by the watched folders.
+     *
+     * @param file - File or folder.
+     * @return - Absolute, normalised path.
+     */
+    private static Path getPath(File file) {
+        return file.getAbsoluteFile().toPath().normalize();
+    }
+
+}